@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Measures last name suggestions of the {@link LastNameSuggester} for {@code names}
+ * distinct generated last names, plus {@value #SHARED} owners sharing a few common names
+ * and {@value #RENAMED} renamed owners waiting in the overlay. The p0.99 line of the
+ * sample is the latency to keep below one millisecond. No test enforces it: run the
+ * benchmark with {@code ./mvnw -Pjmh test-compile exec:exec
+ * -Djmh.args=LastNameSuggestBenchmark} and check the line by hand after changes to the
+ * suggester.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LastNameSuggestBenchmark {
+
+	private static final String[] SYLLABLES = { "an", "ber", "cha", "del", "ek", "fran", "gor", "hol", "ing", "jo",
+			"kla", "lin", "mar", "nor", "ol", "pet", "quin", "ros", "son", "tay", "ul", "vin", "wes", "xan", "yor",
+			"zel" };
+
+	private static final int SHARED = 200_000;
+
+	private static final int RENAMED = 500;
+
+	private static final int BATCH = 200_000;
+
+	@Param({ "2000000" })
+	private int names;
+
+	@Param({ "", "m", "marjo", "marjoquin" })
+	private String prefix;
+
+	private ConfigurableApplicationContext context;
+
+	private LastNameSuggester suggester;
+
+	@Setup
+	public void setup() {
+		this.context = new SpringApplicationBuilder(PetClinicApplication.class).web(WebApplicationType.NONE)
+			.properties("spring.docker.compose.enabled=false", "logging.level.root=WARN")
+			.run();
+		this.suggester = this.context.getBean(LastNameSuggester.class);
+		int owners = this.names + SHARED;
+		List<Owner> batch = new ArrayList<>(BATCH);
+		for (int i = 0; i < owners; i++) {
+			// the shared owners take the first thousand names, the most common ones first
+			int name = (i < this.names ? i : (i - this.names) % ((i - this.names) % 1000 + 1));
+			batch.add(owner(1000 + i, name(name)));
+			if (batch.size() == BATCH || i == owners - 1) {
+				this.suggester.ownersSaved(new OwnersSavedEvent(batch));
+				batch.clear();
+			}
+		}
+		Map<Integer, String> previousLastNames = new HashMap<>();
+		for (int i = 0; i < RENAMED; i++) {
+			batch.add(owner(1000 + i, name(this.names + i)));
+			previousLastNames.put(1000 + i, name(i));
+		}
+		this.suggester.ownersSaved(new OwnersSavedEvent(batch, previousLastNames));
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public List<LastNameSuggestion> suggest() {
+		return this.suggester.suggest(this.prefix, LastNameSuggester.MAX_SUGGESTIONS);
+	}
+
+	private static Owner owner(int id, String lastName) {
+		Owner owner = new Owner();
+		owner.setId(id);
+		owner.setLastName(lastName);
+		return owner;
+	}
+
+	/**
+	 * Spell the number scrambled in base 26 with one syllable per digit, so that every
+	 * number below 26^5 has a name of its own.
+	 */
+	private static String name(int number) {
+		int scrambled = (int) ((number * 7919L) % 11_881_376);
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < 5; i++) {
+			name.append(SYLLABLES[scrambled % SYLLABLES.length]);
+			scrambled /= SYLLABLES.length;
+		}
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Measures cascading saves of new owners, each with {@value #PETS} pets of
+ * {@value #VISITS_PER_PET} visits, against the embedded database, with JDBC batching off
+ * ({@code batchSize=1}) and on. The {@code inserts} counter reports the resulting rows
+ * inserted per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerSaveBenchmark {
+
+	static final int PETS = 3;
+
+	static final int VISITS_PER_PET = 2;
+
+	private static final int INSERTS = 1 + PETS + PETS * VISITS_PER_PET;
+
+	@Param({ "1", "50" })
+	private int batchSize;
+
+	private ConfigurableApplicationContext context;
+
+	private OwnerRepository owners;
+
+	private PetType dog;
+
+	@Setup
+	public void setup() {
+		this.context = new SpringApplicationBuilder(PetClinicApplication.class).web(WebApplicationType.NONE)
+			.properties("spring.jpa.properties.hibernate.jdbc.batch_size=" + this.batchSize,
+					"spring.docker.compose.enabled=false", "logging.level.root=WARN")
+			.run();
+		this.owners = this.context.getBean(OwnerRepository.class);
+		this.dog = this.context.getBean(PetTypeRegistry.class).findByName("dog");
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public Owner saveOwnerWithPetsAndVisits(Inserts inserts) {
+		Owner owner = new Owner();
+		owner.setFirstName("Bench");
+		owner.setLastName("Mark");
+		owner.setAddress("1 Main St.");
+		owner.setCity("Madison");
+		owner.setTelephone("6085550000");
+		for (int i = 0; i < PETS; i++) {
+			Pet pet = new Pet();
+			pet.setName("Pet " + i);
+			pet.setBirthDate(LocalDate.of(2020, 1, 1));
+			pet.setType(this.dog);
+			for (int v = 0; v < VISITS_PER_PET; v++) {
+				Visit visit = new Visit();
+				visit.setDescription("checkup " + v);
+				pet.addVisit(visit);
+			}
+			owner.addPet(pet);
+		}
+		this.owners.save(owner);
+		inserts.inserts += INSERTS;
+		return owner;
+	}
+
+	/**
+	 * Counts the inserted rows, which JMH reports as a rate next to the save rate.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Inserts {
+
+		public long inserts;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.inserts = 0;
+		}
+
+	}
+
+}
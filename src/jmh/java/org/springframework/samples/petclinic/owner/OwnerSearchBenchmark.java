@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Measures searches of the {@link OwnerSearchIndex} holding {@code owners} generated
+ * owners, for a misspelt name, a substring of names and streets, and a name shorter than
+ * a trigram. Only the index is searched; loading the matching owners is not included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerSearchBenchmark {
+
+	private static final String[] SYLLABLES = { "an", "ber", "cha", "del", "ek", "fran", "gor", "hol", "ing", "jo",
+			"kla", "lin", "mar", "nor", "ol", "pet", "quin", "ros", "son", "tay", "ul", "vin", "wes", "xan", "yor",
+			"zel" };
+
+	private static final String[] STREET_TYPES = { "St.", "Ave.", "Way", "Blvd.", "Trail", "La." };
+
+	private static final String[] CITIES = { "Madison", "Sun Prairie", "McFarland", "Windsor", "Monona", "Waunakee" };
+
+	@Param({ "100000" })
+	private int owners;
+
+	@Param({ "frnklin", "ingwes", "jo" })
+	private String query;
+
+	private ConfigurableApplicationContext context;
+
+	private OwnerSearchIndex index;
+
+	@Setup
+	public void setup() {
+		this.context = new SpringApplicationBuilder(PetClinicApplication.class).web(WebApplicationType.NONE)
+			.properties("spring.docker.compose.enabled=false", "logging.level.root=WARN")
+			.run();
+		this.index = this.context.getBean(OwnerSearchIndex.class);
+		Random random = new Random(42);
+		List<Owner> generated = new ArrayList<>(this.owners);
+		for (int i = 0; i < this.owners; i++) {
+			Owner owner = new Owner();
+			owner.setId(1000 + i);
+			owner.setFirstName(name(random, 2));
+			owner.setLastName(name(random, 3));
+			owner.setAddress((1 + random.nextInt(9999)) + " " + name(random, 3) + " "
+					+ STREET_TYPES[random.nextInt(STREET_TYPES.length)]);
+			owner.setCity(CITIES[random.nextInt(CITIES.length)]);
+			generated.add(owner);
+		}
+		this.index.ownersSaved(new OwnersSavedEvent(generated));
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public List<Integer> search() {
+		return this.index.search(this.query, 20);
+	}
+
+	private static String name(Random random, int syllables) {
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < syllables; i++) {
+			name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+}
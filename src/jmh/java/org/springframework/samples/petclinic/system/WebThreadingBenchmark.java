@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+import javax.sql.DataSource;
+
+/**
+ * Load scenario comparing request handling on Tomcat's platform thread pool with virtual
+ * threads, for 1024 concurrent clients reading an owner page. Each JDBC statement is
+ * delayed by {@code statementLatency} milliseconds to stand in for a slow database, and
+ * the connection pool is larger than Tomcat's 200 platform threads, so the thread pool is
+ * what limits the platform thread run.
+ * <p>
+ * Throughput is reported in requests per millisecond and the latency distribution,
+ * including p0.99, in milliseconds. Virtual threads need Java 21; on older JVMs both runs
+ * use platform threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(1024)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class WebThreadingBenchmark {
+
+	@Param({ "false", "true" })
+	private boolean virtualThreads;
+
+	@Param({ "20" })
+	private int statementLatency;
+
+	private ServletWebServerApplicationContext context;
+
+	private HttpClient client;
+
+	private HttpRequest request;
+
+	@Setup
+	public void setup() {
+		this.context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(PetClinicApplication.class,
+				StatementLatencyConfiguration.class)
+			.properties("server.port=0", "spring.threads.virtual.enabled=" + this.virtualThreads,
+					"spring.datasource.hikari.maximum-pool-size=400",
+					"petclinic.benchmark.statement-latency=" + this.statementLatency,
+					"spring.docker.compose.enabled=false", "logging.level.root=WARN")
+			.run();
+		int port = this.context.getWebServer().getPort();
+		this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		this.request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/owners/6")).build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public int showOwner() throws IOException, InterruptedException {
+		return this.client.send(this.request, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	/**
+	 * Delays every statement executed through the application's data source, while the
+	 * connection is held. Not annotated, so that component scanning does not pick it up
+	 * in other benchmarks.
+	 */
+	static class StatementLatencyConfiguration {
+
+		@Bean
+		static BeanPostProcessor statementLatency(@Value("${petclinic.benchmark.statement-latency}") long latency) {
+			return new BeanPostProcessor() {
+
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (bean instanceof DataSource dataSource) {
+						return proxy(DataSource.class, dataSource, latency);
+					}
+					return bean;
+				}
+
+			};
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <T> T proxy(Class<T> type, T target, long latency) {
+			InvocationHandler handler = (proxy, method, args) -> {
+				if (target instanceof Statement && method.getName().startsWith("execute")) {
+					Thread.sleep(latency);
+				}
+				Object result;
+				try {
+					result = method.invoke(target, args);
+				}
+				catch (InvocationTargetException ex) {
+					throw ex.getTargetException();
+				}
+				if (result instanceof Connection connection && method.getReturnType() == Connection.class) {
+					return proxy(Connection.class, connection, latency);
+				}
+				if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+					return proxy((Class<Statement>) method.getReturnType(), statement, latency);
+				}
+				return result;
+			};
+			return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+		}
+
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.support.MutableSortDefinition;
+import org.springframework.beans.support.PropertyComparator;
+
+/**
+ * Compares {@link Vet#getSpecialties()} with the reflective sort it replaced, for vets
+ * with 1 to 20 specialties.
+ * <ul>
+ * <li>{@code reflectiveSort}: the previous implementation, sorting a copy of the
+ * specialties with {@link PropertyComparator} on every call.</li>
+ * <li>{@code firstAccess}: the current implementation right after the specialties
+ * changed, when the sorted list has to be computed.</li>
+ * <li>{@code repeatedAccess}: the current implementation once the sorted list has been
+ * computed, as seen by every render after the first.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VetSpecialtiesBenchmark {
+
+	@Param({ "1", "5", "10", "20" })
+	private int specialtyCount;
+
+	private Set<Specialty> specialties;
+
+	private Vet vet;
+
+	@Setup
+	public void setup() {
+		this.specialties = new HashSet<>();
+		for (int i = 0; i < this.specialtyCount; i++) {
+			Specialty specialty = new Specialty();
+			specialty.setId(i);
+			specialty.setName("specialty-" + ((i * 7) % this.specialtyCount));
+			this.specialties.add(specialty);
+		}
+		this.vet = new Vet();
+		this.vet.setSpecialtiesInternal(this.specialties);
+	}
+
+	@Benchmark
+	public List<Specialty> reflectiveSort() {
+		List<Specialty> sortedSpecs = new ArrayList<>(this.vet.getSpecialtiesInternal());
+		PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
+		return Collections.unmodifiableList(sortedSpecs);
+	}
+
+	@Benchmark
+	public List<Specialty> firstAccess() {
+		this.vet.setSpecialtiesInternal(this.specialties);
+		return this.vet.getSpecialties();
+	}
+
+	@Benchmark
+	public List<Specialty> repeatedAccess() {
+		return this.vet.getSpecialties();
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+
+/**
+ * Measures the JSON and XML serialization of the {@link Vets} returned by the
+ * {@code /vets} endpoint, for 6 to 60 vets with up to 3 specialties each. The object
+ * mapper and the JAXB context are shared, as they are in the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VetsSerializationBenchmark {
+
+	private static final String[] SPECIALTIES = { "dentistry", "radiology", "surgery" };
+
+	@Param({ "6", "60" })
+	private int vetCount;
+
+	private Vets vets;
+
+	private ObjectMapper objectMapper;
+
+	private JAXBContext jaxbContext;
+
+	@Setup
+	public void setup() throws JAXBException {
+		this.vets = new Vets();
+		for (int i = 0; i < this.vetCount; i++) {
+			Vet vet = new Vet();
+			vet.setId(i + 1);
+			vet.setFirstName("First" + i);
+			vet.setLastName("Last" + i);
+			for (int s = 0; s < i % (SPECIALTIES.length + 1); s++) {
+				Specialty specialty = new Specialty();
+				specialty.setId(s + 1);
+				specialty.setName(SPECIALTIES[s]);
+				vet.addSpecialty(specialty);
+			}
+			this.vets.getVetList().add(vet);
+		}
+		this.objectMapper = new ObjectMapper();
+		this.jaxbContext = JAXBContext.newInstance(Vets.class);
+	}
+
+	@Benchmark
+	public String jackson() throws JsonProcessingException {
+		return this.objectMapper.writeValueAsString(this.vets);
+	}
+
+	@Benchmark
+	public String jaxb() throws JAXBException {
+		StringWriter writer = new StringWriter();
+		Marshaller marshaller = this.jaxbContext.createMarshaller();
+		marshaller.marshal(this.vets, writer);
+		return writer.toString();
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.loadtest;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The owners that the journeys pick from: up to {@value #OWNERS_PER_LAST_NAME} owners of
+ * each of the last names that the seeder uses, read through the owners API before the run
+ * starts. Only the last names that some owner has are searched for.
+ */
+final class Dataset {
+
+	private static final int OWNERS_PER_LAST_NAME = 100;
+
+	private final List<String> lastNames;
+
+	private final int[] ownerIds;
+
+	private Dataset(List<String> lastNames, int[] ownerIds) {
+		this.lastNames = lastNames;
+		this.ownerIds = ownerIds;
+	}
+
+	static Dataset sample(PetClinicClient client) throws IOException, InterruptedException {
+		ObjectMapper objectMapper = new ObjectMapper();
+		List<String> lastNames = new ArrayList<>();
+		List<Integer> ownerIds = new ArrayList<>();
+		for (String lastName : DatasetSeeder.LAST_NAMES) {
+			HttpRequest request = HttpRequest
+				.newBuilder(client.base()
+					.resolve("/api/owners?size=" + OWNERS_PER_LAST_NAME + "&lastName="
+							+ URLEncoder.encode(lastName, StandardCharsets.UTF_8)))
+				.header("Accept", "application/json")
+				.build();
+			HttpResponse<String> response = client.unmeasured(request);
+			if (response.statusCode() != 200) {
+				throw new IOException("Owners API returned HTTP " + response.statusCode());
+			}
+			int found = ownerIds.size();
+			for (JsonNode owner : objectMapper.readTree(response.body()).path("owners")) {
+				if (lastName.equals(owner.path("lastName").asText())) {
+					ownerIds.add(owner.path("id").asInt());
+				}
+			}
+			if (ownerIds.size() > found) {
+				lastNames.add(lastName);
+			}
+		}
+		if (ownerIds.isEmpty()) {
+			throw new IllegalStateException("No owners found at " + client.base());
+		}
+		return new Dataset(List.copyOf(lastNames), ownerIds.stream().mapToInt(Integer::intValue).toArray());
+	}
+
+	String lastName(SplittableRandom random) {
+		return DatasetSeeder.pick(this.lastNames, random);
+	}
+
+	int ownerId(SplittableRandom random) {
+		return this.ownerIds[random.nextInt(this.ownerIds.length)];
+	}
+
+	int size() {
+		return this.ownerIds.length;
+	}
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Adds synthetic owners with their pets and visits through the NDJSON import, so that the
+ * journeys run against more data than the sample data. The same seed always produces the
+ * same owners. Last names are skewed, so that a few are shared by many owners, as in a
+ * real town.
+ */
+final class DatasetSeeder {
+
+	static final List<String> LAST_NAMES = List.of("Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+			"Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas",
+			"Taylor", "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark",
+			"Ramirez", "Lewis", "Robinson", "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen",
+			"Hill", "Flores", "Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter",
+			"Roberts", "Franklin", "Coleman", "Black", "Escobito", "Schroeder", "Estaban", "McTavish", "Rodriquez");
+
+	static final List<String> PET_TYPES = List.of("cat", "dog", "lizard", "snake", "bird", "hamster");
+
+	private static final List<String> FIRST_NAMES = List.of("James", "Mary", "Robert", "Patricia", "John", "Jennifer",
+			"Michael", "Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica",
+			"Thomas", "Sarah", "Charles", "Karen", "Daniel", "Lisa", "Matthew", "Nancy", "Anthony", "Betty", "Mark",
+			"Sandra", "Donald", "Ashley");
+
+	private static final List<String> STREETS = List.of("Main St.", "Oak Ave.", "Pine St.", "Maple Ave.", "Cedar Ln.",
+			"Elm St.", "Lake St.", "Hill Rd.", "Park Ave.", "Washington Blvd.");
+
+	private static final List<String> CITIES = List.of("Madison", "Sun Prairie", "McFarland", "Windsor", "Monona",
+			"Waunakee", "Middleton", "Verona", "Fitchburg", "Stoughton");
+
+	private static final List<String> PET_NAMES = List.of("Leo", "Basil", "Rosy", "Jewel", "Iggy", "George", "Samantha",
+			"Max", "Lucky", "Mulligan", "Freddy", "Lucy", "Sly", "Bella", "Charlie", "Daisy", "Milo", "Luna", "Rocky",
+			"Coco");
+
+	private static final List<String> VISIT_REASONS = List.of("rabies shot", "annual checkup", "vaccination",
+			"dental cleaning", "neutered", "spayed", "limping", "skin rash", "ear infection", "upset stomach");
+
+	private static final int OWNERS_PER_REQUEST = 1000;
+
+	private final PetClinicClient client;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	DatasetSeeder(PetClinicClient client) {
+		this.client = client;
+	}
+
+	/**
+	 * Import the given number of owners, in requests of {@value #OWNERS_PER_REQUEST}.
+	 */
+	void seed(int owners, long seed, PrintStream out) throws IOException, InterruptedException {
+		SplittableRandom random = new SplittableRandom(seed);
+		LocalDate today = LocalDate.now();
+		long start = System.nanoTime();
+		int pets = 0;
+		int visits = 0;
+		for (int imported = 0; imported < owners; imported += OWNERS_PER_REQUEST) {
+			StringBuilder body = new StringBuilder();
+			for (int i = imported; i < Math.min(owners, imported + OWNERS_PER_REQUEST); i++) {
+				body.append(this.objectMapper.writeValueAsString(owner(random, today))).append('\n');
+			}
+			HttpRequest request = HttpRequest.newBuilder(this.client.base().resolve("/api/import"))
+				.header("Content-Type", "application/x-ndjson")
+				.POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+				.build();
+			HttpResponse<String> response = this.client.unmeasured(request);
+			if (response.statusCode() != 200) {
+				throw new IOException("Import returned HTTP " + response.statusCode() + ": " + response.body());
+			}
+			JsonNode report = this.objectMapper.readTree(response.body());
+			pets += report.path("pets").asInt();
+			visits += report.path("visits").asInt();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		out.printf("Seeded %d owners, %d pets and %d visits in %.1f s (%.0f owners/s)%n", owners, pets, visits, seconds,
+				owners / seconds);
+	}
+
+	private ObjectNode owner(SplittableRandom random, LocalDate today) {
+		ObjectNode owner = this.objectMapper.createObjectNode();
+		owner.put("firstName", pick(FIRST_NAMES, random));
+		owner.put("lastName", LAST_NAMES.get((int) (LAST_NAMES.size() * Math.pow(random.nextDouble(), 2))));
+		owner.put("address", (random.nextInt(9900) + 100) + " " + pick(STREETS, random));
+		owner.put("city", pick(CITIES, random));
+		owner.put("telephone", "608555" + String.format("%04d", random.nextInt(10000)));
+		ArrayNode pets = owner.putArray("pets");
+		Set<String> names = new HashSet<>();
+		int petCount = random.nextInt(4);
+		while (names.size() < petCount) {
+			String name = pick(PET_NAMES, random);
+			if (names.add(name)) {
+				LocalDate birthDate = today.minusDays(random.nextInt(15 * 365));
+				ObjectNode pet = pets.addObject();
+				pet.put("name", name);
+				pet.put("birthDate", birthDate.toString());
+				pet.put("type", pick(PET_TYPES, random));
+				ArrayNode visits = pet.putArray("visits");
+				int visitCount = random.nextInt(6);
+				for (int i = 0; i < visitCount; i++) {
+					long age = today.toEpochDay() - birthDate.toEpochDay();
+					ObjectNode visit = visits.addObject();
+					visit.put("date", birthDate.plusDays(random.nextLong(age + 1)).toString());
+					visit.put("description", pick(VISIT_REASONS, random));
+				}
+			}
+		}
+		return owner;
+	}
+
+	static String pick(List<String> values, SplittableRandom random) {
+		return values.get(random.nextInt(values.size()));
+	}
+
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.loadtest;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * The scripted user journeys, each a sequence of the requests a user makes in a browser,
+ * through the owner, pet, visit and vet controllers. Requests are named after their
+ * route, so that the latencies of all owners add up under one name.
+ */
+enum Journey {
+
+	/**
+	 * Search owners by last name, or by its first letters, and open one of the owners
+	 * found.
+	 */
+	FIND_OWNER("find-owner", 30) {
+		@Override
+		void run(PetClinicClient client, Dataset dataset, SplittableRandom random)
+				throws IOException, InterruptedException {
+			client.get("GET /owners/find", "/owners/find");
+			String lastName = dataset.lastName(random);
+			if (random.nextInt(4) == 0) {
+				lastName = lastName.substring(0, Math.min(3, lastName.length()));
+			}
+			String results = client.get("GET /owners?lastName", "/owners?lastName=" + encode(lastName)).body();
+			List<String> ownerIds = matches(OWNER_LINK, results, 1);
+			if (!ownerIds.isEmpty()) {
+				client.get("GET /owners/{id}", "/owners/" + ownerIds.get(random.nextInt(ownerIds.size())));
+			}
+		}
+	},
+
+	/**
+	 * Show an owner and load the visit history of one of its pets.
+	 */
+	VIEW_OWNER("view-owner", 25) {
+		@Override
+		void run(PetClinicClient client, Dataset dataset, SplittableRandom random)
+				throws IOException, InterruptedException {
+			int ownerId = dataset.ownerId(random);
+			String petId = pet(client, ownerId, random);
+			if (petId != null) {
+				client.get("GET /owners/{id}/pets/{id}/visits", "/owners/" + ownerId + "/pets/" + petId + "/visits");
+			}
+		}
+	},
+
+	/**
+	 * Register a new owner and show it.
+	 */
+	REGISTER_OWNER("register-owner", 2) {
+		@Override
+		void run(PetClinicClient client, Dataset dataset, SplittableRandom random)
+				throws IOException, InterruptedException {
+			client.get("GET /owners/new", "/owners/new");
+			String location = client
+				.post("POST /owners/new", "/owners/new",
+						Map.of("firstName", "Load", "lastName", dataset.lastName(random), "address",
+								(random.nextInt(9900) + 100) + " Test St.", "city", "Madison", "telephone",
+								"608555" + String.format("%04d", random.nextInt(10000))))
+				.headers()
+				.firstValue("Location")
+				.orElseThrow(() -> new IOException("Owner was not created"));
+			client.get("GET /owners/{id}", location);
+		}
+	},
+
+	/**
+	 * Add a pet to an owner.
+	 */
+	ADD_PET("add-pet", 5) {
+		@Override
+		void run(PetClinicClient client, Dataset dataset, SplittableRandom random)
+				throws IOException, InterruptedException {
+			String owner = "/owners/" + dataset.ownerId(random);
+			client.get("GET /owners/{id}/pets/new", owner + "/pets/new");
+			client.post("POST /owners/{id}/pets/new", owner + "/pets/new",
+					Map.of("name", "Pet " + Long.toString(random.nextLong() & Long.MAX_VALUE, 36), "birthDate",
+							birthDate(random), "type", DatasetSeeder.pick(DatasetSeeder.PET_TYPES, random)));
+			client.get("GET /owners/{id}", owner);
+		}
+	},
+
+	/**
+	 * Correct the birth date and type of one of an owner's pets.
+	 */
+	EDIT_PET("edit-pet", 5) {
+		@Override
+		void run(PetClinicClient client, Dataset dataset, SplittableRandom random)
+				throws IOException, InterruptedException {
+			int ownerId = dataset.ownerId(random);
+			String petId = pet(client, ownerId, random);
+			if (petId == null) {
+				return;
+			}
+			String edit = "/owners/" + ownerId + "/pets/" + petId + "/edit";
+			String form = client.get("GET /owners/{id}/pets/{id}/edit", edit).body();
+			List<String> names = matches(PET_NAME, form, 1);
+			if (names.isEmpty()) {
+				throw new IOException("No pet name in the form of " + edit);
+			}
+			client.post("POST /owners/{id}/pets/{id}/edit", edit,
+					Map.of("id", petId, "name", HtmlUtils.htmlUnescape(names.get(0)), "birthDate", birthDate(random),
+							"type", DatasetSeeder.pick(DatasetSeeder.PET_TYPES, random)));
+			client.get("GET /owners/{id}", "/owners/" + ownerId);
+		}
+	},
+
+	/**
+	 * Book a visit for one of an owner's pets.
+	 */
+	BOOK_VISIT("book-visit", 13) {
+		@Override
+		void run(PetClinicClient client, Dataset dataset, SplittableRandom random)
+				throws IOException, InterruptedException {
+			int ownerId = dataset.ownerId(random);
+			String petId = pet(client, ownerId, random);
+			if (petId == null) {
+				return;
+			}
+			String visit = "/owners/" + ownerId + "/pets/" + petId + "/visits/new";
+			client.get("GET /owners/{id}/pets/{id}/visits/new", visit);
+			client.post("POST /owners/{id}/pets/{id}/visits/new", visit,
+					Map.of("date", LocalDate.now().toString(), "description", "checkup"));
+			client.get("GET /owners/{id}", "/owners/" + ownerId);
+		}
+	},
+
+	/**
+	 * Page through the vets and read them as JSON.
+	 */
+	VIEW_VETS("view-vets", 20) {
+		@Override
+		void run(PetClinicClient client, Dataset dataset, SplittableRandom random)
+				throws IOException, InterruptedException {
+			client.get("GET /vets.html", "/vets.html?page=" + (random.nextInt(2) + 1));
+			client.get("GET /vets", "/vets");
+		}
+	};
+
+	private static final Pattern OWNER_LINK = Pattern.compile("href=\"/owners/(\\d+)\"");
+
+	private static final Pattern PET_LINK = Pattern.compile("href=\"\\d+/pets/(\\d+)/edit\"");
+
+	private static final Pattern PET_NAME = Pattern.compile("name=\"name\"[^>]*value=\"([^\"]*)\"");
+
+	private final String id;
+
+	private final int defaultWeight;
+
+	Journey(String id, int defaultWeight) {
+		this.id = id;
+		this.defaultWeight = defaultWeight;
+	}
+
+	String id() {
+		return this.id;
+	}
+
+	/**
+	 * Make the requests of the journey.
+	 * @throws IOException if a request fails, which ends the journey
+	 */
+	abstract void run(PetClinicClient client, Dataset dataset, SplittableRandom random)
+			throws IOException, InterruptedException;
+
+	/**
+	 * Show an owner and return the id of one of its pets, or {@code null} if it has none.
+	 */
+	private static String pet(PetClinicClient client, int ownerId, SplittableRandom random)
+			throws IOException, InterruptedException {
+		String page = client.get("GET /owners/{id}", "/owners/" + ownerId).body();
+		List<String> petIds = matches(PET_LINK, page, 1);
+		return petIds.isEmpty() ? null : petIds.get(random.nextInt(petIds.size()));
+	}
+
+	private static List<String> matches(Pattern pattern, String text, int group) {
+		List<String> matches = new ArrayList<>();
+		Matcher matcher = pattern.matcher(text);
+		while (matcher.find()) {
+			matches.add(matcher.group(group));
+		}
+		return matches;
+	}
+
+	private static String birthDate(SplittableRandom random) {
+		return LocalDate.now().minusDays(random.nextInt(1, 15 * 365)).toString();
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Return the mix of journeys described by comma-separated {@code id=weight} pairs,
+	 * such as {@code find-owner=50,view-vets=50}, or the default mix if the description
+	 * is empty.
+	 */
+	static Mix mix(String description) {
+		Map<Journey, Integer> weights = new EnumMap<>(Journey.class);
+		if (description == null || description.isBlank()) {
+			for (Journey journey : values()) {
+				weights.put(journey, journey.defaultWeight);
+			}
+			return new Mix(weights);
+		}
+		for (String pair : description.split(",")) {
+			String[] idAndWeight = pair.trim().split("=");
+			Journey journey = byId(idAndWeight[0]);
+			int weight = (idAndWeight.length > 1) ? Integer.parseInt(idAndWeight[1]) : 1;
+			if (weight < 0) {
+				throw new IllegalArgumentException("Negative weight for " + journey.id);
+			}
+			weights.put(journey, weight);
+		}
+		return new Mix(weights);
+	}
+
+	private static Journey byId(String id) {
+		for (Journey journey : values()) {
+			if (journey.id.equals(id)) {
+				return journey;
+			}
+		}
+		throw new IllegalArgumentException("Unknown journey '" + id + "'");
+	}
+
+	/**
+	 * Journeys picked at random in proportion to their weights.
+	 */
+	static final class Mix {
+
+		private final Journey[] journeys;
+
+		private final int[] cumulativeWeights;
+
+		private Mix(Map<Journey, Integer> weights) {
+			this.journeys = weights.keySet().toArray(new Journey[0]);
+			this.cumulativeWeights = new int[this.journeys.length];
+			int total = 0;
+			for (int i = 0; i < this.journeys.length; i++) {
+				total += weights.get(this.journeys[i]);
+				this.cumulativeWeights[i] = total;
+			}
+			if (total == 0) {
+				throw new IllegalArgumentException("No journey has a weight");
+			}
+		}
+
+		Journey next(SplittableRandom random) {
+			int value = random.nextInt(this.cumulativeWeights[this.cumulativeWeights.length - 1]);
+			for (int i = 0;; i++) {
+				if (value < this.cumulativeWeights[i]) {
+					return this.journeys[i];
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder description = new StringBuilder();
+			for (int i = 0; i < this.journeys.length; i++) {
+				int weight = this.cumulativeWeights[i] - ((i > 0) ? this.cumulativeWeights[i - 1] : 0);
+				description.append((i > 0) ? "," : "").append(this.journeys[i].id).append('=').append(weight);
+			}
+			return description.toString();
+		}
+
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latencies by name, in microseconds, recorded in HdrHistogram recorders so that any
+ * number of threads can record without contention. Only failures are counted; their
+ * latencies are not recorded.
+ */
+final class LatencyReport {
+
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	private final String title;
+
+	private final Map<String, Measurements> measurements = new ConcurrentSkipListMap<>();
+
+	LatencyReport(String title) {
+		this.title = title;
+	}
+
+	void record(String name, long nanos) {
+		measurements(name).recorder.recordValue(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 1));
+	}
+
+	void error(String name, String message) {
+		Measurements measurements = measurements(name);
+		measurements.errors.increment();
+		measurements.lastError = message;
+	}
+
+	/**
+	 * Discard everything recorded so far, at the end of the warmup.
+	 */
+	void reset() {
+		for (Measurements measurements : this.measurements.values()) {
+			measurements.recorder.reset();
+			measurements.errors.reset();
+			measurements.lastError = null;
+		}
+	}
+
+	/**
+	 * Print the throughput and latency percentiles recorded since the last reset, and
+	 * write the full distribution of each name to an {@code .hgrm} file in the given
+	 * directory, if any, such as {@code GET-owners-id.hgrm}.
+	 */
+	void print(PrintStream out, Duration elapsed, Path directory) throws IOException {
+		double seconds = elapsed.toMillis() / 1000.0;
+		out.println();
+		out.printf("%-40s %9s %7s %9s %9s %9s %9s %9s %9s%n", this.title, "count", "errors", "per sec", "p50 ms",
+				"p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		for (Map.Entry<String, Measurements> entry : this.measurements.entrySet()) {
+			Histogram histogram = entry.getValue().recorder.getIntervalHistogram();
+			out.printf("%-40s %9d %7d %9.1f", entry.getKey(), histogram.getTotalCount(), entry.getValue().errors.sum(),
+					histogram.getTotalCount() / seconds);
+			for (double percentile : PERCENTILES) {
+				out.printf(" %9.2f", histogram.getValueAtPercentile(percentile) / 1000.0);
+			}
+			out.printf(" %9.2f%n", histogram.getMaxValue() / 1000.0);
+			if (directory != null) {
+				Files.createDirectories(directory);
+				try (PrintStream file = new PrintStream(
+						Files.newOutputStream(directory.resolve(fileName(entry.getKey()))), false, "UTF-8")) {
+					histogram.outputPercentileDistribution(file, 1000.0);
+				}
+			}
+		}
+		for (Map.Entry<String, Measurements> entry : this.measurements.entrySet()) {
+			String lastError = entry.getValue().lastError;
+			if (lastError != null) {
+				out.println("  last error of " + entry.getKey() + ": " + lastError);
+			}
+		}
+	}
+
+	private static String fileName(String name) {
+		return name.replaceAll("[^A-Za-z0-9]+", "-").replaceAll("^-|-$", "") + ".hgrm";
+	}
+
+	private Measurements measurements(String name) {
+		return this.measurements.computeIfAbsent(name, (key) -> new Measurements());
+	}
+
+	private static final class Measurements {
+
+		private final Recorder recorder = new Recorder(3);
+
+		private final LongAdder errors = new LongAdder();
+
+		private volatile String lastError;
+
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * HTTP load test of the user journeys in {@link Journey}. Unless a {@code --target} is
+ * given, the application is started in this JVM on a random port, with the default H2
+ * database, so that the whole test runs on one machine. Run it with
+ * {@code ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.args="--owners=10000"} or
+ * {@code ./gradlew loadTest --args="--owners=10000"}, with these options:
+ * <ul>
+ * <li>{@code --target}: the URL of a running application</li>
+ * <li>{@code --owners}: the number of synthetic owners to add first, 0 by default; the
+ * application started in this JVM generates them in its database, while a
+ * {@code --target} is sent them through the import API</li>
+ * <li>{@code --seed}: the seed of the synthetic owners and of the journeys, 42 by
+ * default</li>
+ * <li>{@code --model}: {@code closed}, by default, or {@code open}, see
+ * {@link Workload}</li>
+ * <li>{@code --users}: the number of users of the closed model, 32 by default</li>
+ * <li>{@code --think-time}: the pause of each user between journeys in the closed model,
+ * 0 by default</li>
+ * <li>{@code --rate}: the journeys per second of the open model, 50 by default</li>
+ * <li>{@code --max-concurrency}: the most journeys the open model runs at a time, 512 by
+ * default</li>
+ * <li>{@code --mix}: the journeys and their weights, such as
+ * {@code find-owner=3,view-vets=1}</li>
+ * <li>{@code --warmup}: the time before measurements start, 10s by default</li>
+ * <li>{@code --duration}: the time measured, 60s by default</li>
+ * <li>{@code --output}: the directory the latency distributions are written to as
+ * {@code .hgrm} files, {@code target/loadtest} by default</li>
+ * </ul>
+ * Latencies are reported per request and per journey, from HdrHistogram recordings.
+ */
+public final class LoadTest {
+
+	private LoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		SimpleCommandLinePropertySource options = new SimpleCommandLinePropertySource(args);
+		String target = options.getProperty("target");
+		int owners = Integer.parseInt(option(options, "owners", "0"));
+		long seed = Long.parseLong(option(options, "seed", "42"));
+		ServletWebServerApplicationContext context = null;
+		if (target == null) {
+			// DevTools would restart this main method without its arguments, and turn off
+			// template caching. The slow query and N+1 warnings are still counted in the
+			// metrics, but would drown the report.
+			System.setProperty("spring.devtools.restart.enabled", "false");
+			SpringApplicationBuilder application = new SpringApplicationBuilder(PetClinicApplication.class).properties(
+					"server.port=0", "spring.docker.compose.enabled=false", "spring.devtools.add-properties=false",
+					"spring.devtools.livereload.enabled=false", "logging.level.root=WARN",
+					"logging.level.org.springframework.samples.petclinic=ERROR");
+			if (owners > 0) {
+				application.properties("petclinic.generate.owners=" + owners, "petclinic.generate.seed=" + seed,
+						"logging.level.org.springframework.samples.petclinic.system.DataGenerator=INFO",
+						"logging.level.org.springframework.samples.petclinic.system.DataGeneratorRunner=INFO");
+				owners = 0;
+			}
+			context = (ServletWebServerApplicationContext) application.run();
+			target = "http://localhost:" + context.getWebServer().getPort();
+		}
+		try {
+			run(URI.create(target), owners, seed, options);
+		}
+		finally {
+			if (context != null) {
+				context.close();
+			}
+		}
+	}
+
+	private static void run(URI target, int owners, long seed, SimpleCommandLinePropertySource options)
+			throws Exception {
+		Duration warmup = DurationStyle.detectAndParse(option(options, "warmup", "10s"));
+		Duration duration = DurationStyle.detectAndParse(option(options, "duration", "60s"));
+		Journey.Mix mix = Journey.mix(options.getProperty("mix"));
+		Workload workload = switch (option(options, "model", "closed")) {
+			case "closed" -> Workload.closed(Integer.parseInt(option(options, "users", "32")),
+					DurationStyle.detectAndParse(option(options, "think-time", "0ms")));
+			case "open" -> Workload.open(Double.parseDouble(option(options, "rate", "50")),
+					Integer.parseInt(option(options, "max-concurrency", "512")));
+			default -> throw new IllegalArgumentException("Unknown model '" + options.getProperty("model") + "'");
+		};
+
+		LatencyReport requests = new LatencyReport("request");
+		LatencyReport journeys = new LatencyReport("journey");
+		PetClinicClient client = new PetClinicClient(target, requests);
+		if (owners > 0) {
+			new DatasetSeeder(client).seed(owners, seed, System.out);
+		}
+		Dataset dataset = Dataset.sample(client);
+		System.out.println("Running " + mix + " against " + target + " (" + dataset.size() + " owners sampled), "
+				+ workload + ", warmup " + warmup + ", duration " + duration);
+
+		long start = System.nanoTime();
+		Thread load = new Thread(() -> {
+			try {
+				workload.run(mix, client, dataset, journeys, new SplittableRandom(seed),
+						start + warmup.plus(duration).toNanos());
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}, "load");
+		load.start();
+		Thread.sleep(warmup.toMillis());
+		requests.reset();
+		journeys.reset();
+		long measured = System.nanoTime();
+		load.join();
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - measured);
+
+		Path output = Path.of(option(options, "output", "target/loadtest"));
+		requests.print(System.out, elapsed, output.resolve("requests"));
+		journeys.print(System.out, elapsed, output.resolve("journeys"));
+		System.out.println();
+		System.out.println("Latency distributions written to " + output.toAbsolutePath());
+	}
+
+	private static String option(SimpleCommandLinePropertySource options, String name, String defaultValue) {
+		String value = options.getProperty(name);
+		return (value != null) ? value : defaultValue;
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Sends the requests of the journeys, as a browser without JavaScript would, and records
+ * the latency of each under its name. Redirects are not followed: a form post is measured
+ * on its own and the journey requests the page it redirects to when a user would see it.
+ */
+final class PetClinicClient {
+
+	private final HttpClient client = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.followRedirects(HttpClient.Redirect.NEVER)
+		.connectTimeout(Duration.ofSeconds(10))
+		.build();
+
+	private final URI base;
+
+	private final LatencyReport requests;
+
+	PetClinicClient(URI base, LatencyReport requests) {
+		this.base = base;
+		this.requests = requests;
+	}
+
+	/**
+	 * Get a page.
+	 * @throws IOException if the request fails or its status is not 2xx or 3xx, after
+	 * counting it as an error of the given name
+	 */
+	HttpResponse<String> get(String name, String path) throws IOException, InterruptedException {
+		return send(name, HttpRequest.newBuilder(this.base.resolve(path)).GET());
+	}
+
+	/**
+	 * Post a form, URL encoded.
+	 * @throws IOException if the request fails or its status is not 2xx or 3xx, after
+	 * counting it as an error of the given name
+	 */
+	HttpResponse<String> post(String name, String path, Map<String, String> form)
+			throws IOException, InterruptedException {
+		StringJoiner body = new StringJoiner("&");
+		form.forEach((key, value) -> body.add(URLEncoder.encode(key, StandardCharsets.UTF_8) + "="
+				+ URLEncoder.encode(value, StandardCharsets.UTF_8)));
+		return send(name,
+				HttpRequest.newBuilder(this.base.resolve(path))
+					.header("Content-Type", "application/x-www-form-urlencoded")
+					.POST(HttpRequest.BodyPublishers.ofString(body.toString())));
+	}
+
+	/**
+	 * Send a request that is not part of the measurements, such as the requests that
+	 * prepare the dataset.
+	 */
+	HttpResponse<String> unmeasured(HttpRequest request) throws IOException, InterruptedException {
+		return this.client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	URI base() {
+		return this.base;
+	}
+
+	private HttpResponse<String> send(String name, HttpRequest.Builder request)
+			throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		HttpResponse<String> response;
+		try {
+			response = this.client.send(request.timeout(Duration.ofSeconds(30)).build(),
+					HttpResponse.BodyHandlers.ofString());
+		}
+		catch (IOException ex) {
+			this.requests.error(name, ex.toString());
+			throw ex;
+		}
+		long elapsed = System.nanoTime() - start;
+		if (response.statusCode() >= 400) {
+			String message = response.request().method() + " " + response.uri().getPath() + " returned HTTP "
+					+ response.statusCode();
+			this.requests.error(name, message);
+			throw new IOException(message);
+		}
+		this.requests.record(name, elapsed);
+		return response;
+	}
+
+}
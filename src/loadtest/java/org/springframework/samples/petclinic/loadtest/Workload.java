@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.loadtest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The shape of the load: how journeys are started and how many run at the same time.
+ * <p>
+ * In the closed model a fixed number of users each run one journey after the other, so a
+ * slower server receives fewer requests. In the open model journeys arrive at a fixed
+ * average rate, with exponentially distributed gaps, whether or not earlier journeys have
+ * completed, so a slower server builds a queue. The latency of a journey is measured from
+ * the moment it was due to start, so the time spent waiting in that queue is part of it.
+ */
+abstract class Workload {
+
+	static Workload closed(int users, Duration thinkTime) {
+		return new Closed(users, thinkTime);
+	}
+
+	static Workload open(double journeysPerSecond, int maxConcurrency) {
+		return new Open(journeysPerSecond, maxConcurrency);
+	}
+
+	/**
+	 * Start journeys until the given {@link System#nanoTime()} deadline, then wait for
+	 * the ones in progress to complete.
+	 */
+	abstract void run(Journey.Mix mix, PetClinicClient client, Dataset dataset, LatencyReport journeys,
+			SplittableRandom random, long deadline) throws InterruptedException;
+
+	static void execute(Journey journey, PetClinicClient client, Dataset dataset, LatencyReport journeys,
+			SplittableRandom random, long start) {
+		try {
+			journey.run(client, dataset, random);
+			journeys.record(journey.id(), System.nanoTime() - start);
+		}
+		catch (IOException | RuntimeException ex) {
+			journeys.error(journey.id(), ex.getMessage());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static final class Closed extends Workload {
+
+		private final int users;
+
+		private final long thinkTimeNanos;
+
+		Closed(int users, Duration thinkTime) {
+			this.users = users;
+			this.thinkTimeNanos = thinkTime.toNanos();
+		}
+
+		@Override
+		void run(Journey.Mix mix, PetClinicClient client, Dataset dataset, LatencyReport journeys,
+				SplittableRandom random, long deadline) throws InterruptedException {
+			ExecutorService executor = Executors.newFixedThreadPool(this.users);
+			for (int i = 0; i < this.users; i++) {
+				SplittableRandom userRandom = random.split();
+				executor.execute(() -> {
+					while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+						execute(mix.next(userRandom), client, dataset, journeys, userRandom, System.nanoTime());
+						if (this.thinkTimeNanos > 0) {
+							LockSupport.parkNanos(this.thinkTimeNanos);
+						}
+					}
+				});
+			}
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public String toString() {
+			return "closed model, " + this.users + " users, think time " + Duration.ofNanos(this.thinkTimeNanos);
+		}
+
+	}
+
+	private static final class Open extends Workload {
+
+		private final double journeysPerSecond;
+
+		private final int maxConcurrency;
+
+		Open(double journeysPerSecond, int maxConcurrency) {
+			this.journeysPerSecond = journeysPerSecond;
+			this.maxConcurrency = maxConcurrency;
+		}
+
+		@Override
+		void run(Journey.Mix mix, PetClinicClient client, Dataset dataset, LatencyReport journeys,
+				SplittableRandom random, long deadline) throws InterruptedException {
+			ExecutorService executor = Executors.newFixedThreadPool(this.maxConcurrency);
+			long due = System.nanoTime();
+			while (due < deadline) {
+				long delay;
+				while ((delay = due - System.nanoTime()) > 0) {
+					LockSupport.parkNanos(delay);
+				}
+				Journey journey = mix.next(random);
+				SplittableRandom journeyRandom = random.split();
+				long start = due;
+				executor.execute(() -> execute(journey, client, dataset, journeys, journeyRandom, start));
+				due += (long) (-Math.log(1 - random.nextDouble()) / this.journeysPerSecond * 1e9);
+			}
+			executor.shutdown();
+			if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				int notStarted = executor.shutdownNow().size();
+				System.out.println(notStarted + " journeys were still queued a minute after the end of the run");
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "open model, " + this.journeysPerSecond + " journeys/s, at most " + this.maxConcurrency
+					+ " at a time";
+		}
+
+	}
+
+}
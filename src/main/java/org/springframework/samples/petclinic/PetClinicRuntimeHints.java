@@ -16,6 +16,7 @@
 
 package org.springframework.samples.petclinic;
 
+import org.hibernate.stat.spi.StatisticsImplementor;
 import org.springframework.aot.hint.RuntimeHints;
 import org.springframework.aot.hint.RuntimeHintsRegistrar;
 import org.springframework.samples.petclinic.model.BaseEntity;
@@ -33,6 +34,7 @@ public class PetClinicRuntimeHints implements RuntimeHintsRegistrar {
 		hints.serialization().registerType(BaseEntity.class);
 		hints.serialization().registerType(Person.class);
 		hints.serialization().registerType(Vet.class);
+		hints.proxies().registerJdkProxy(StatisticsImplementor.class);
 	}
 
 }
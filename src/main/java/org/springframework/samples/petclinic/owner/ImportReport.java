@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+
+/**
+ * Outcome of an import by {@link OwnerImporter}.
+ *
+ * @param owners the number of owners written
+ * @param pets the number of pets written
+ * @param visits the number of visits written
+ * @param rejected the number of owner records that were not written, because they could
+ * not be parsed, were invalid, or belonged to a chunk that failed
+ * @param elapsedMillis the duration of the import
+ * @param ownersPerSecond the number of owners written per second
+ * @param errors the first errors, each prefixed with the line of its record
+ */
+public record ImportReport(int owners, int pets, int visits, int rejected, long elapsedMillis, double ownersPerSecond,
+		List<String> errors) {
+
+	@Override
+	public String toString() {
+		return "Imported " + this.owners + " owners, " + this.pets + " pets and " + this.visits + " visits in "
+				+ this.elapsedMillis + " ms (" + Math.round(this.ownersPerSecond) + " owners/s), rejected "
+				+ this.rejected + " owners";
+	}
+
+}
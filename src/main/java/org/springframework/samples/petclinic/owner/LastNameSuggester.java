@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.LastNameTrie.Change;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+
+/**
+ * Suggests the most common last names starting with a prefix, ignoring case, with the
+ * number of owners of each.
+ * <p>
+ * The names are counted in a single scan of the owners table when the application is
+ * ready, and held in an immutable {@link LastNameTrie}. Saved owners, announced by
+ * {@link OwnersSavedEvent}s with the last names that updated owners had before, are moved
+ * between their names as changes of the counts in a sorted overlay that suggestions
+ * combine with the trie. Once the overlay holds more than
+ * {@code petclinic.suggest.merge-threshold} names, it is merged into a new trie. Until
+ * then, a name of the trie that is not among the {@value LastNameTrie#TOP} most common
+ * names of the prefix is only suggested if its own count has changed.
+ */
+@Component
+public class LastNameSuggester {
+
+	static final int MAX_SUGGESTIONS = 10;
+
+	private static final String QUERY = "SELECT last_name FROM owners";
+
+	private static final Comparator<LastNameSuggestion> RANKING = Comparator.comparingInt(LastNameSuggestion::owners)
+		.reversed()
+		.thenComparing(LastNameSuggestion::lastName, String.CASE_INSENSITIVE_ORDER);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final int mergeThreshold;
+
+	private volatile Snapshot snapshot = new Snapshot(LastNameTrie.EMPTY, new ConcurrentSkipListMap<>());
+
+	public LastNameSuggester(DataSource dataSource, @Value("${petclinic.search.fetch-size:500}") int fetchSize,
+			@Value("${petclinic.suggest.merge-threshold:1000}") int mergeThreshold) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(fetchSize);
+		this.mergeThreshold = mergeThreshold;
+	}
+
+	/**
+	 * Count the last names of all owners in the data store and replace the trie.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public synchronized void rebuild() {
+		TreeMap<String, Change> counts = new TreeMap<>();
+		this.jdbcTemplate.query(QUERY, (rs) -> {
+			String lastName = rs.getString(1);
+			if (lastName != null && !lastName.isBlank()) {
+				counts.merge(key(lastName), new Change(lastName, 1),
+						(previous, added) -> new Change(previous.name(), previous.count() + 1));
+			}
+		});
+		this.snapshot = new Snapshot(LastNameTrie.EMPTY.merge(counts), new ConcurrentSkipListMap<>());
+	}
+
+	/**
+	 * Move the saved owners from their previous last names to their current ones. Runs
+	 * after the transaction that published the event has committed, or at once if there
+	 * is none.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void ownersSaved(OwnersSavedEvent event) {
+		Snapshot snapshot = this.snapshot;
+		for (Owner owner : event.owners()) {
+			String lastName = owner.getLastName();
+			if (owner.isNew() || lastName == null || lastName.isBlank()) {
+				continue;
+			}
+			String previous = event.previousLastName(owner);
+			if (lastName.equals(previous)) {
+				continue;
+			}
+			if (previous != null && !previous.isBlank()) {
+				change(snapshot.changes(), previous, -1);
+			}
+			change(snapshot.changes(), lastName, 1);
+		}
+		if (snapshot.changes().size() > this.mergeThreshold) {
+			this.snapshot = new Snapshot(snapshot.trie().merge(snapshot.changes()), new ConcurrentSkipListMap<>());
+		}
+	}
+
+	/**
+	 * Return the most common last names starting with the given prefix, ignoring case.
+	 * @param prefix the start of the last names
+	 * @param limit the maximum number of names, at most {@value #MAX_SUGGESTIONS}
+	 * @return the last names with their number of owners, most common first
+	 */
+	public List<LastNameSuggestion> suggest(String prefix, int limit) {
+		String key = key(prefix == null ? "" : prefix);
+		Snapshot snapshot = this.snapshot;
+		LastNameTrie trie = snapshot.trie();
+		NavigableMap<String, Change> changes = snapshot.changes();
+		List<LastNameSuggestion> suggestions = new ArrayList<>();
+		Set<String> seen = new HashSet<>();
+		for (int index : trie.find(key)) {
+			Change change = changes.get(trie.key(index));
+			add(suggestions, trie.name(index), trie.count(index) + (change != null ? change.count() : 0));
+			seen.add(trie.key(index));
+		}
+		for (Map.Entry<String, Change> entry : changes.subMap(key, true, key + Character.MAX_VALUE, true).entrySet()) {
+			if (!seen.contains(entry.getKey())) {
+				add(suggestions, entry.getValue().name(), trie.count(entry.getKey()) + entry.getValue().count());
+			}
+		}
+		suggestions.sort(RANKING);
+		return suggestions.subList(0, Math.min(suggestions.size(), Math.min(limit, MAX_SUGGESTIONS)));
+	}
+
+	private static void add(List<LastNameSuggestion> suggestions, String lastName, int owners) {
+		if (owners > 0) {
+			suggestions.add(new LastNameSuggestion(lastName, owners));
+		}
+	}
+
+	private static void change(NavigableMap<String, Change> changes, String lastName, int count) {
+		changes.merge(key(lastName), new Change(lastName, count),
+				(previous, added) -> new Change(previous.name(), previous.count() + count));
+	}
+
+	private static String key(String lastName) {
+		return lastName.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private record Snapshot(LastNameTrie trie, ConcurrentSkipListMap<String, Change> changes) {
+
+	}
+
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Immutable radix trie over the distinct last names of all owners, with the number of
+ * owners of each name, for suggestions by prefix.
+ * <p>
+ * The names are kept sorted by their lower case key, so every node covers a contiguous
+ * range of names, and the label of the edge into a node is a slice of the first key in
+ * its range. Nodes are numbered breadth first and stored in a few {@code int} arrays,
+ * with the children of each node in consecutive slots. Nodes covering more than
+ * {@value #SCAN} names also hold their {@value #TOP} most common names, so looking up a
+ * prefix costs one step per character plus a copy of at most {@value #TOP} entries,
+ * however many names share the prefix.
+ */
+final class LastNameTrie {
+
+	/**
+	 * The number of most common names held per node.
+	 */
+	static final int TOP = 20;
+
+	/**
+	 * The largest range of names that is ranked at lookup time rather than in advance.
+	 */
+	static final int SCAN = 64;
+
+	static final LastNameTrie EMPTY = build(new String[0], new String[0], new int[0]);
+
+	private final String[] keys;
+
+	private final String[] names;
+
+	private final int[] counts;
+
+	private final int[] start;
+
+	private final int[] end;
+
+	private final int[] depth;
+
+	// children of node i are firstChild[i] to firstChild[i + 1] - 1
+	private final int[] firstChild;
+
+	// offset of the most common names of node i in tops, or -1 for a small node
+	private final int[] top;
+
+	private final int[] tops;
+
+	private LastNameTrie(String[] keys, String[] names, int[] counts, int[] start, int[] end, int[] depth,
+			int[] firstChild, int[] top, int[] tops) {
+		this.keys = keys;
+		this.names = names;
+		this.counts = counts;
+		this.start = start;
+		this.end = end;
+		this.depth = depth;
+		this.firstChild = firstChild;
+		this.top = top;
+		this.tops = tops;
+	}
+
+	/**
+	 * Return the number of distinct names.
+	 */
+	int size() {
+		return this.keys.length;
+	}
+
+	String key(int index) {
+		return this.keys[index];
+	}
+
+	String name(int index) {
+		return this.names[index];
+	}
+
+	int count(int index) {
+		return this.counts[index];
+	}
+
+	/**
+	 * Return the number of owners with the given key, or {@code 0} if there are none.
+	 */
+	int count(String key) {
+		int index = Arrays.binarySearch(this.keys, key);
+		return (index >= 0 ? this.counts[index] : 0);
+	}
+
+	/**
+	 * Return the indexes of the most common names whose key starts with the given prefix,
+	 * most common first.
+	 * @param prefix the lower case prefix
+	 * @return the indexes of up to {@value #TOP} names
+	 */
+	int[] find(String prefix) {
+		if (this.keys.length == 0) {
+			return new int[0];
+		}
+		int node = 0;
+		int matched = 0;
+		while (matched < prefix.length()) {
+			node = child(node, prefix.charAt(matched));
+			if (node < 0) {
+				return new int[0];
+			}
+			int stop = Math.min(this.depth[node], prefix.length());
+			if (!this.keys[this.start[node]].regionMatches(matched, prefix, matched, stop - matched)) {
+				return new int[0];
+			}
+			matched = stop;
+		}
+		if (this.top[node] >= 0) {
+			int offset = this.top[node];
+			int length = 0;
+			while (length < TOP && this.tops[offset + length] >= 0) {
+				length++;
+			}
+			return Arrays.copyOfRange(this.tops, offset, offset + length);
+		}
+		int[] range = new int[this.end[node] - this.start[node]];
+		for (int i = 0; i < range.length; i++) {
+			range[i] = this.start[node] + i;
+		}
+		return rank(this.counts, range, range.length);
+	}
+
+	/**
+	 * Return the child of the node whose edge starts with the given character, or
+	 * {@code -1}. Children are in the order of their keys.
+	 */
+	private int child(int node, char c) {
+		int position = this.depth[node];
+		int low = this.firstChild[node];
+		int high = this.firstChild[node + 1] - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			char found = this.keys[this.start[middle]].charAt(position);
+			if (found < c) {
+				low = middle + 1;
+			}
+			else if (found > c) {
+				high = middle - 1;
+			}
+			else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Return a new trie with the given changes applied. Names whose count drops to zero
+	 * are removed.
+	 * @param changes the change of the number of owners and the spelling of each changed
+	 * name, by key
+	 */
+	LastNameTrie merge(NavigableMap<String, Change> changes) {
+		int capacity = this.keys.length + changes.size();
+		String[] keys = new String[capacity];
+		String[] names = new String[capacity];
+		int[] counts = new int[capacity];
+		int size = 0;
+		int index = 0;
+		Iterator<Map.Entry<String, Change>> iterator = changes.entrySet().iterator();
+		Map.Entry<String, Change> change = (iterator.hasNext() ? iterator.next() : null);
+		while (index < this.keys.length || change != null) {
+			int order = (change == null ? -1
+					: index == this.keys.length ? 1 : this.keys[index].compareTo(change.getKey()));
+			String key;
+			String name;
+			int count;
+			if (order < 0) {
+				key = this.keys[index];
+				name = this.names[index];
+				count = this.counts[index++];
+			}
+			else {
+				key = change.getKey();
+				name = (order == 0 ? this.names[index] : change.getValue().name());
+				count = (order == 0 ? this.counts[index++] : 0) + change.getValue().count();
+				change = (iterator.hasNext() ? iterator.next() : null);
+			}
+			if (count > 0) {
+				keys[size] = key;
+				names[size] = name;
+				counts[size++] = count;
+			}
+		}
+		return build(Arrays.copyOf(keys, size), Arrays.copyOf(names, size), Arrays.copyOf(counts, size));
+	}
+
+	/**
+	 * Build the trie from names sorted by their distinct keys.
+	 */
+	static LastNameTrie build(String[] keys, String[] names, int[] counts) {
+		IntArray start = new IntArray();
+		IntArray end = new IntArray();
+		IntArray depth = new IntArray();
+		IntArray firstChild = new IntArray();
+		start.add(0);
+		end.add(keys.length);
+		depth.add(0);
+		// the nodes are appended in breadth first order while they are visited
+		for (int node = 0; node < start.size; node++) {
+			int low = start.get(node);
+			int high = end.get(node);
+			int position = depth.get(node);
+			firstChild.add(start.size);
+			int from = (low < high && keys[low].length() == position ? low + 1 : low);
+			while (from < high) {
+				int to = groupEnd(keys, from, high, position);
+				start.add(from);
+				end.add(to);
+				depth.add(commonPrefix(keys[from], keys[to - 1]));
+				from = to;
+			}
+		}
+		firstChild.add(start.size);
+
+		int nodes = start.size;
+		int[] top = new int[nodes];
+		IntArray tops = new IntArray();
+		int[] candidates = new int[2 * SCAN];
+		// children are numbered after their parent, so visit the nodes backwards
+		for (int node = nodes - 1; node >= 0; node--) {
+			top[node] = -1;
+			int low = start.get(node);
+			if (end.get(node) - low <= SCAN) {
+				continue;
+			}
+			int size = 0;
+			if (keys[low].length() == depth.get(node)) {
+				candidates[size++] = low;
+			}
+			for (int child = firstChild.get(node); child < firstChild.get(node + 1); child++) {
+				if (candidates.length < size + SCAN) {
+					candidates = Arrays.copyOf(candidates, candidates.length * 2);
+				}
+				if (top[child] >= 0) {
+					for (int i = 0; i < TOP && tops.get(top[child] + i) >= 0; i++) {
+						candidates[size++] = tops.get(top[child] + i);
+					}
+				}
+				else {
+					for (int i = start.get(child); i < end.get(child); i++) {
+						candidates[size++] = i;
+					}
+				}
+			}
+			int[] ranked = rank(counts, candidates, size);
+			top[node] = tops.size;
+			for (int i = 0; i < TOP; i++) {
+				tops.add(i < ranked.length ? ranked[i] : -1);
+			}
+		}
+		return new LastNameTrie(keys, names, counts, start.toArray(), end.toArray(), depth.toArray(),
+				firstChild.toArray(), top, tops.toArray());
+	}
+
+	/**
+	 * Return the end of the range of keys that have the same character at the given
+	 * position as the key at {@code from}.
+	 */
+	private static int groupEnd(String[] keys, int from, int to, int position) {
+		char c = keys[from].charAt(position);
+		int low = from + 1;
+		int high = to;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (keys[middle].charAt(position) == c) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static int commonPrefix(String first, String last) {
+		int length = Math.min(first.length(), last.length());
+		int i = 0;
+		while (i < length && first.charAt(i) == last.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Return up to {@value #TOP} of the given indexes, the most common names first and
+	 * names with the same count in key order.
+	 */
+	private static int[] rank(int[] counts, int[] indexes, int size) {
+		long[] ranked = new long[size];
+		for (int i = 0; i < size; i++) {
+			ranked[i] = ((long) (Integer.MAX_VALUE - counts[indexes[i]]) << 32) | indexes[i];
+		}
+		Arrays.sort(ranked);
+		int[] result = new int[Math.min(size, TOP)];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = (int) ranked[i];
+		}
+		return result;
+	}
+
+	/**
+	 * A change of the number of owners with a name.
+	 *
+	 * @param name the spelling of the name
+	 * @param count the number of owners added, or removed if negative
+	 */
+	record Change(String name, int count) {
+
+	}
+
+	private static final class IntArray {
+
+		private int[] values = new int[16];
+
+		private int size;
+
+		void add(int value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size * 2);
+			}
+			this.values[this.size++] = value;
+		}
+
+		int get(int index) {
+			return this.values[index];
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+
+	}
+
+}
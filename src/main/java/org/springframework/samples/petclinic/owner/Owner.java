@@ -15,8 +15,12 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 
 import org.springframework.core.style.ToStringCreator;
 import org.springframework.samples.petclinic.model.Person;
@@ -64,6 +68,17 @@ public class Owner extends Person {
 	@OrderBy("name")
 	private List<Pet> pets = new ArrayList<>();
 
+	/**
+	 * Lookup index over {@link #pets}, built on first lookup and discarded when the pets
+	 * change.
+	 */
+	private transient PetIndex petIndex;
+
+	/**
+	 * The view of {@link #pets} returned by {@link #getPets()}, created on first use.
+	 */
+	private transient PetsView petsView;
+
 	public String getAddress() {
 		return this.address;
 	}
@@ -89,7 +104,10 @@ public class Owner extends Person {
 	}
 
 	public List<Pet> getPets() {
-		return this.pets;
+		if (this.petsView == null) {
+			this.petsView = new PetsView();
+		}
+		return this.petsView;
 	}
 
 	public void addPet(Pet pet) {
@@ -113,15 +131,7 @@ public class Owner extends Person {
 	 * @return a pet if pet id is already in use
 	 */
 	public Pet getPet(Integer id) {
-		for (Pet pet : getPets()) {
-			if (!pet.isNew()) {
-				Integer compId = pet.getId();
-				if (compId.equals(id)) {
-					return pet;
-				}
-			}
-		}
-		return null;
+		return petIndex().byId.get(id);
 	}
 
 	/**
@@ -130,16 +140,19 @@ public class Owner extends Person {
 	 * @return a pet if pet name is already in use
 	 */
 	public Pet getPet(String name, boolean ignoreNew) {
-		name = name.toLowerCase();
-		for (Pet pet : getPets()) {
-			String compName = pet.getName();
-			if (compName != null && compName.equalsIgnoreCase(name)) {
-				if (!ignoreNew || !pet.isNew()) {
-					return pet;
-				}
-			}
+		PetIndex index = petIndex();
+		String key = PetIndex.fold(name);
+		return ignoreNew ? index.savedByName.get(key) : index.byName.get(key);
+	}
+
+	private PetIndex petIndex() {
+		PetsView view = (PetsView) getPets();
+		PetIndex index = this.petIndex;
+		if (index == null || !index.isCurrent(this.pets, view.modifications(), Pet.changes())) {
+			index = new PetIndex(this.pets, view.modifications(), Pet.changes());
+			this.petIndex = index;
 		}
-		return null;
+		return index;
 	}
 
 	@Override
@@ -171,4 +184,113 @@ public class Owner extends Person {
 		pet.addVisit(visit);
 	}
 
+	/**
+	 * Live view of {@link #pets} that counts the changes made through it, including those
+	 * through its iterators and sub lists.
+	 */
+	private final class PetsView extends AbstractList<Pet> implements RandomAccess {
+
+		@Override
+		public Pet get(int index) {
+			return Owner.this.pets.get(index);
+		}
+
+		@Override
+		public int size() {
+			return Owner.this.pets.size();
+		}
+
+		@Override
+		public Pet set(int index, Pet pet) {
+			this.modCount++;
+			return Owner.this.pets.set(index, pet);
+		}
+
+		@Override
+		public void add(int index, Pet pet) {
+			this.modCount++;
+			Owner.this.pets.add(index, pet);
+		}
+
+		@Override
+		public Pet remove(int index) {
+			this.modCount++;
+			return Owner.this.pets.remove(index);
+		}
+
+		int modifications() {
+			return this.modCount;
+		}
+
+	}
+
+	/**
+	 * Pets by id and by case-folded name, keeping the first pet of the list for each key.
+	 * The index is stale once the list is replaced, as the persistence provider does when
+	 * loading or merging the owner, once it is changed through {@link Owner#getPets()},
+	 * or once any pet is renamed or given an id through its setters. The pets that were
+	 * new when the index was built are remembered as well, so that an id assigned by the
+	 * persistence provider also makes the index stale.
+	 */
+	private static final class PetIndex {
+
+		private final List<Pet> pets;
+
+		private final int modifications;
+
+		private final long petChanges;
+
+		private final Map<Integer, Pet> byId = new HashMap<>();
+
+		private final Map<String, Pet> byName = new HashMap<>();
+
+		private final Map<String, Pet> savedByName = new HashMap<>();
+
+		private final List<Pet> unsaved = new ArrayList<>();
+
+		PetIndex(List<Pet> pets, int modifications, long petChanges) {
+			this.pets = pets;
+			this.modifications = modifications;
+			this.petChanges = petChanges;
+			for (Pet pet : pets) {
+				if (pet.isNew()) {
+					this.unsaved.add(pet);
+				}
+				else {
+					this.byId.putIfAbsent(pet.getId(), pet);
+				}
+				if (pet.getName() != null) {
+					String key = fold(pet.getName());
+					this.byName.putIfAbsent(key, pet);
+					if (!pet.isNew()) {
+						this.savedByName.putIfAbsent(key, pet);
+					}
+				}
+			}
+		}
+
+		boolean isCurrent(List<Pet> pets, int modifications, long petChanges) {
+			if (pets != this.pets || modifications != this.modifications || petChanges != this.petChanges) {
+				return false;
+			}
+			for (Pet pet : this.unsaved) {
+				if (!pet.isNew()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Fold the name so that two names have the same key exactly when
+		 * {@link String#equalsIgnoreCase(String)} considers them equal.
+		 */
+		static String fold(String name) {
+			StringBuilder folded = new StringBuilder(name.length());
+			name.codePoints().forEach((c) -> folded.appendCodePoint(Character.toLowerCase(Character.toUpperCase(c))));
+			return folded.toString();
+		}
+
+	}
+
 }
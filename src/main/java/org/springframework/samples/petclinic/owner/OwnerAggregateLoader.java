@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.annotation.RequestScope;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Loads {@link Owner} aggregates at most once per HTTP request. The owner, pet and visit
+ * controllers resolve the same owner from several model attribute methods and handlers;
+ * sharing this loader means the owner graph is only read from the database the first time
+ * it is asked for.
+ * <p>
+ * Pages that show visits read the owner and the visits in one read-only transaction, so
+ * that they take a single connection and see a consistent state of both.
+ * <p>
+ * The number of hits and misses of each request is published to the
+ * {@code petclinic.owner.loads} distribution summary (tagged {@code result=hit} or
+ * {@code result=miss}) when the request completes, and is available through the Actuator
+ * metrics endpoint.
+ */
+@Component
+@RequestScope
+class OwnerAggregateLoader {
+
+	private final OwnerRepository owners;
+
+	private final VisitRepository visits;
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	private final Map<Integer, Owner> loaded = new HashMap<>();
+
+	private int hits;
+
+	private int misses;
+
+	public OwnerAggregateLoader(OwnerRepository owners, VisitRepository visits,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		this.owners = owners;
+		this.visits = visits;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Return the {@link Owner} with the given id, loading it from the data store if it
+	 * has not been loaded during the current request yet.
+	 * @param ownerId the id to search for
+	 * @return the {@link Owner}, or {@literal null} if not found
+	 */
+	public Owner findById(int ownerId) {
+		if (this.loaded.containsKey(ownerId)) {
+			this.hits++;
+			return this.loaded.get(ownerId);
+		}
+		this.misses++;
+		Owner owner = this.owners.findById(ownerId);
+		this.loaded.put(ownerId, owner);
+		return owner;
+	}
+
+	/**
+	 * Return the {@link Owner} with the given id and the most recent visits of each of
+	 * its pets, for the owner details page.
+	 * @param ownerId the id to search for
+	 * @return the owner and the newest page of each pet's visit history by pet id, or
+	 * {@literal null} if not found
+	 */
+	@Transactional(readOnly = true)
+	public OwnerVisits findWithLatestVisits(int ownerId) {
+		Owner owner = findById(ownerId);
+		if (owner == null) {
+			return null;
+		}
+		List<Integer> petIds = owner.getPets().stream().map(Pet::getId).toList();
+		return new OwnerVisits(owner, this.visits.findLatestVisits(petIds, VisitPage.SIZE));
+	}
+
+	/**
+	 * Return the {@link Owner} with the given id and all visits of one of its pets, for
+	 * the visit form.
+	 * @param ownerId the id to search for
+	 * @param petId the id of the pet
+	 * @return the owner, the pet and its visits, oldest first, or {@literal null} if the
+	 * owner is not found
+	 */
+	@Transactional(readOnly = true)
+	public PetVisits findWithPetVisits(int ownerId, int petId) {
+		Owner owner = findById(ownerId);
+		if (owner == null) {
+			return null;
+		}
+		return new PetVisits(owner, owner.getPet(petId), this.visits.findByPetId(petId));
+	}
+
+	public int getHits() {
+		return this.hits;
+	}
+
+	public int getMisses() {
+		return this.misses;
+	}
+
+	@PreDestroy
+	public void recordLoads() {
+		if (this.hits + this.misses == 0) {
+			return;
+		}
+		this.meterRegistry.ifAvailable(registry -> {
+			loads("hit").register(registry).record(this.hits);
+			loads("miss").register(registry).record(this.misses);
+		});
+	}
+
+	private static DistributionSummary.Builder loads(String result) {
+		return DistributionSummary.builder("petclinic.owner.loads")
+			.description("Owner aggregate lookups per request")
+			.baseUnit("loads")
+			.tag("result", result);
+	}
+
+	/**
+	 * An owner with the newest page of each of its pets' visit history, by pet id.
+	 */
+	record OwnerVisits(Owner owner, Map<Integer, VisitPage> visitHistory) {
+
+	}
+
+	/**
+	 * An owner with one of its pets and all visits of that pet.
+	 */
+	record PetVisits(Owner owner, Pet pet, List<Visit> visits) {
+
+	}
+
+}
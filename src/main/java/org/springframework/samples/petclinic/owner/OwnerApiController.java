@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.system.QueryBudget;
+import org.springframework.stereotype.Controller;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Read API for owners and their pets, served from record projections of the columns each
+ * view needs rather than from entities. The API is versioned by media type; plain
+ * {@code application/json} is served as the current version.
+ * <p>
+ * Pages of owner summaries are kept in the {@code ownerSummaries} cache region, which is
+ * cleared whenever owners are created, updated or imported.
+ */
+@Controller
+class OwnerApiController {
+
+	static final String V1 = "application/vnd.petclinic.v1+json";
+
+	static final int MAX_PAGE_SIZE = 100;
+
+	private final OwnerRepository owners;
+
+	public OwnerApiController(OwnerRepository owners) {
+		this.owners = owners;
+	}
+
+	@GetMapping(path = "/api/owners", produces = { V1, MediaType.APPLICATION_JSON_VALUE })
+	@ResponseBody
+	@QueryBudget(max = 1)
+	public OwnerSummaryPage listOwners(@RequestParam(defaultValue = "") String lastName,
+			@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+		int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		return this.owners.findSummariesByLastName(lastName, OwnerCursor.decode(cursor), pageSize);
+	}
+
+	@GetMapping(path = "/api/owners/{ownerId}", produces = { V1, MediaType.APPLICATION_JSON_VALUE })
+	@ResponseBody
+	@QueryBudget(max = 2)
+	public ResponseEntity<OwnerDetails> showOwner(@PathVariable("ownerId") int ownerId) {
+		OwnerDetails owner = this.owners.findDetailsById(ownerId);
+		return (owner != null) ? ResponseEntity.ok(owner) : ResponseEntity.notFound().build();
+	}
+
+	/**
+	 * Clear the cached summary pages and owner counts, as a saved owner may move between
+	 * them. Runs after the transaction that published the event has committed, so that no
+	 * page or count read before the commit is cached again, or at once if there is none.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	@CacheEvict(cacheNames = { "ownerSummaries", "ownerCounts" }, allEntries = true)
+	public void ownersSaved(OwnersSavedEvent event) {
+	}
+
+}
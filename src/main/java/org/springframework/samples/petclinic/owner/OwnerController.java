@@ -15,12 +15,14 @@
  */
 package org.springframework.samples.petclinic.owner;
 
-import java.util.List;
 import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpMethod;
+import org.springframework.samples.petclinic.owner.OwnerAggregateLoader.OwnerVisits;
+import org.springframework.samples.petclinic.system.QueryBudget;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -49,8 +51,23 @@ class OwnerController {
 
 	private final OwnerRepository owners;
 
-	public OwnerController(OwnerRepository clinicService) {
+	private final OwnerAggregateLoader ownerLoader;
+
+	private final int pageSize;
+
+	private final boolean approximateTotal;
+
+	private final ApplicationEventPublisher events;
+
+	public OwnerController(OwnerRepository clinicService, OwnerAggregateLoader ownerLoader,
+			@Value("${petclinic.owners.page-size:5}") int pageSize,
+			@Value("${petclinic.owners.approximate-total:false}") boolean approximateTotal,
+			ApplicationEventPublisher events) {
 		this.owners = clinicService;
+		this.ownerLoader = ownerLoader;
+		this.pageSize = pageSize;
+		this.approximateTotal = approximateTotal;
+		this.events = events;
 	}
 
 	@InitBinder
@@ -58,9 +75,16 @@ class OwnerController {
 		dataBinder.setDisallowedFields("id");
 	}
 
+	/**
+	 * The owner that a submitted form is bound to. Pages showing an owner load it
+	 * themselves, together with the rest of what they show.
+	 */
 	@ModelAttribute("owner")
-	public Owner findOwner(@PathVariable(name = "ownerId", required = false) Integer ownerId) {
-		return ownerId == null ? new Owner() : this.owners.findById(ownerId);
+	public Owner findOwner(@PathVariable(name = "ownerId", required = false) Integer ownerId, HttpMethod method) {
+		if (ownerId == null) {
+			return new Owner();
+		}
+		return (method == HttpMethod.GET) ? null : this.ownerLoader.findById(ownerId);
 	}
 
 	@GetMapping("/owners/new")
@@ -78,6 +102,7 @@ class OwnerController {
 		}
 
 		this.owners.save(owner);
+		this.events.publishEvent(new OwnersSavedEvent(owner));
 		redirectAttributes.addFlashAttribute("message", "New Owner Created");
 		return "redirect:/owners/" + owner.getId();
 	}
@@ -87,8 +112,14 @@ class OwnerController {
 		return "owners/findOwners";
 	}
 
+	/**
+	 * Find owners by last name. Pages are read from the opaque {@code cursor} of the
+	 * previous or next page links, ordered by last name and id. Links with a page number
+	 * from earlier versions show the first page.
+	 */
 	@GetMapping("/owners")
-	public String processFindForm(@RequestParam(defaultValue = "1") int page, Owner owner, BindingResult result,
+	@QueryBudget(max = 3)
+	public String processFindForm(@RequestParam(required = false) String cursor, Owner owner, BindingResult result,
 			Model model) {
 		// allow parameterless GET request for /owners to return all records
 		if (owner.getLastName() == null) {
@@ -96,41 +127,42 @@ class OwnerController {
 		}
 
 		// find owners by last name
-		Page<Owner> ownersResults = findPaginatedForOwnersLastName(page, owner.getLastName());
-		if (ownersResults.isEmpty()) {
+		OwnerCursor position = OwnerCursor.decode(cursor);
+		OwnerWindow ownersResults = this.owners.findByLastName(owner.getLastName(), position, this.pageSize);
+		if (position == null && ownersResults.owners().isEmpty()) {
 			// no owners found
 			result.rejectValue("lastName", "notFound", "not found");
 			return "owners/findOwners";
 		}
 
-		if (ownersResults.getTotalElements() == 1) {
+		if (position == null && ownersResults.owners().size() == 1 && ownersResults.next() == null) {
 			// 1 owner found
-			owner = ownersResults.iterator().next();
+			owner = ownersResults.owners().get(0);
 			return "redirect:/owners/" + owner.getId();
 		}
 
 		// multiple owners found
-		return addPaginationModel(page, model, ownersResults);
+		return addWindowModel(owner.getLastName(), model, ownersResults);
 	}
 
-	private String addPaginationModel(int page, Model model, Page<Owner> paginated) {
-		List<Owner> listOwners = paginated.getContent();
-		model.addAttribute("currentPage", page);
-		model.addAttribute("totalPages", paginated.getTotalPages());
-		model.addAttribute("totalItems", paginated.getTotalElements());
-		model.addAttribute("listOwners", listOwners);
+	private String addWindowModel(String lastName, Model model, OwnerWindow window) {
+		model.addAttribute("listOwners", window.owners());
+		if (window.previous() != null) {
+			model.addAttribute("previousCursor", window.previous().encode());
+		}
+		if (window.next() != null) {
+			model.addAttribute("nextCursor", window.next().encode());
+		}
+		if (this.approximateTotal) {
+			model.addAttribute("totalItems", this.owners.countByLastNameStartingWith(lastName));
+		}
 		return "owners/ownersList";
 	}
 
-	private Page<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return owners.findByLastName(lastname, pageable);
-	}
-
 	@GetMapping("/owners/{ownerId}/edit")
+	@QueryBudget(max = 1)
 	public String initUpdateOwnerForm(@PathVariable("ownerId") int ownerId, Model model) {
-		Owner owner = this.owners.findById(ownerId);
+		Owner owner = this.ownerLoader.findById(ownerId);
 		model.addAttribute(owner);
 		return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 	}
@@ -144,21 +176,26 @@ class OwnerController {
 		}
 
 		owner.setId(ownerId);
+		String previousLastName = this.owners.findLastNameById(ownerId);
 		this.owners.save(owner);
+		this.events.publishEvent(new OwnersSavedEvent(owner, previousLastName));
 		redirectAttributes.addFlashAttribute("message", "Owner Values Updated");
 		return "redirect:/owners/{ownerId}";
 	}
 
 	/**
-	 * Custom handler for displaying an owner.
+	 * Custom handler for displaying an owner. Only the most recent visits of each pet are
+	 * loaded, in the same transaction as the owner; older visits are fetched on demand
+	 * from {@link VisitController#showVisitHistory}.
 	 * @param ownerId the ID of the owner to display
 	 * @return a ModelMap with the model attributes for the view
 	 */
 	@GetMapping("/owners/{ownerId}")
 	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
 		ModelAndView mav = new ModelAndView("owners/ownerDetails");
-		Owner owner = this.owners.findById(ownerId);
-		mav.addObject(owner);
+		OwnerVisits owner = this.ownerLoader.findWithLatestVisits(ownerId);
+		mav.addObject(owner.owner());
+		mav.addObject("visitHistory", owner.visitHistory());
 		return mav;
 	}
 
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the list of owners ordered by last name and id, from which the next or the
+ * previous page of owners is read. Cursors travel in URLs as opaque, URL-safe strings.
+ *
+ * @param forward whether the page starts after the position, or ends before it
+ * @param lastName the last name of the owner at the position
+ * @param id the id of the owner at the position
+ */
+public record OwnerCursor(boolean forward, String lastName, int id) {
+
+	private static final char SEPARATOR = ':';
+
+	/**
+	 * Return a cursor to the page following the given owner.
+	 */
+	static OwnerCursor after(Owner owner) {
+		return new OwnerCursor(true, owner.getLastName(), owner.getId());
+	}
+
+	/**
+	 * Return a cursor to the page preceding the given owner.
+	 */
+	static OwnerCursor before(Owner owner) {
+		return new OwnerCursor(false, owner.getLastName(), owner.getId());
+	}
+
+	/**
+	 * Return the URL-safe form of this cursor.
+	 */
+	public String encode() {
+		String value = (this.forward ? "a" : "b") + this.id + SEPARATOR + this.lastName;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Parse a cursor created by {@link #encode()}.
+	 * @param encoded the encoded cursor, may be {@literal null}
+	 * @return the cursor, or {@literal null} if none was given or it cannot be parsed
+	 */
+	public static OwnerCursor decode(String encoded) {
+		if (encoded == null || encoded.isEmpty()) {
+			return null;
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+			int separator = value.indexOf(SEPARATOR);
+			char direction = value.charAt(0);
+			if (separator < 0 || (direction != 'a' && direction != 'b')) {
+				return null;
+			}
+			int id = Integer.parseInt(value.substring(1, separator));
+			return new OwnerCursor(direction == 'a', value.substring(separator + 1), id);
+		}
+		catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+
+/**
+ * Read-only view of an {@link Owner} with its pets in the owners API, selected column by
+ * column without loading the entities.
+ *
+ * @param id the id of the owner
+ * @param firstName the first name
+ * @param lastName the last name
+ * @param address the address
+ * @param city the city
+ * @param telephone the telephone number
+ * @param pets the pets of the owner, ordered by name
+ */
+public record OwnerDetails(Integer id, String firstName, String lastName, String address, String city, String telephone,
+		List<PetSummary> pets) {
+
+	/**
+	 * Create the view of the owner row, without pets.
+	 */
+	public OwnerDetails(Integer id, String firstName, String lastName, String address, String city, String telephone) {
+		this(id, firstName, lastName, address, city, telephone, List.of());
+	}
+
+	OwnerDetails withPets(List<PetSummary> pets) {
+		return new OwnerDetails(this.id, this.firstName, this.lastName, this.address, this.city, this.telephone,
+				List.copyOf(pets));
+	}
+
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.sql.DataSource;
+
+/**
+ * Writes all owners with their pets and visits, in owner id order, while reading them
+ * from a single forward-only cursor. Nothing but the current row is held in memory, so
+ * the heap used by an export does not depend on the number of owners.
+ * <p>
+ * The rows are read in a read-only transaction, which PostgreSQL needs to honour the
+ * fetch size; MySQL needs {@code useCursorFetch=true} on the connection URL.
+ */
+@Component
+class OwnerExporter {
+
+	static final String[] CSV_COLUMNS = { "owner_id", "first_name", "last_name", "address", "city", "telephone",
+			"pet_id", "pet_name", "birth_date", "pet_type", "visit_id", "visit_date", "description" };
+
+	private static final String QUERY = """
+			SELECT o.id AS owner_id, o.first_name, o.last_name, o.address, o.city, o.telephone,
+			       p.id AS pet_id, p.name AS pet_name, p.birth_date, t.name AS pet_type,
+			       v.id AS visit_id, v.visit_date, v.description
+			FROM owners o
+			LEFT JOIN pets p ON p.owner_id = o.id
+			LEFT JOIN types t ON t.id = p.type_id
+			LEFT JOIN visits v ON v.pet_id = p.id
+			ORDER BY o.id, p.id, v.id""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final int flushInterval;
+
+	public OwnerExporter(DataSource dataSource, ObjectMapper objectMapper,
+			@Value("${petclinic.export.fetch-size:500}") int fetchSize,
+			@Value("${petclinic.export.flush-interval:100}") int flushInterval) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(fetchSize);
+		this.objectMapper = objectMapper;
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * Write one JSON object per owner and line, flushing the stream every
+	 * {@code petclinic.export.flush-interval} owners.
+	 * @return the number of owners written
+	 */
+	@Transactional(readOnly = true)
+	public int exportNdjson(OutputStream out) throws IOException {
+		try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(out)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.setRootValueSeparator(null);
+			NdjsonWriter writer = new NdjsonWriter(generator);
+			this.jdbcTemplate.query(QUERY, writer);
+			writer.finish();
+			return writer.owners;
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	/**
+	 * Write a header and one line per owner, pet and visit, flushing the writer every
+	 * {@code petclinic.export.flush-interval} owners.
+	 * @return the number of owners written
+	 */
+	@Transactional(readOnly = true)
+	public int exportCsv(Writer out) throws IOException {
+		try {
+			CsvWriter writer = new CsvWriter(out);
+			writer.writeLine(CSV_COLUMNS);
+			this.jdbcTemplate.query(QUERY, writer);
+			out.flush();
+			return writer.owners;
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private static String date(ResultSet rs, String column) throws SQLException {
+		LocalDate date = rs.getObject(column, LocalDate.class);
+		return date != null ? date.toString() : null;
+	}
+
+	/**
+	 * Nests the joined rows of an owner into one JSON object, opening and closing the
+	 * owner and pet objects as their ids change.
+	 */
+	private final class NdjsonWriter implements RowCallbackHandler {
+
+		private final JsonGenerator generator;
+
+		private Integer ownerId;
+
+		private Integer petId;
+
+		private int owners;
+
+		NdjsonWriter(JsonGenerator generator) {
+			this.generator = generator;
+		}
+
+		@Override
+		public void processRow(ResultSet rs) throws SQLException {
+			try {
+				int ownerId = rs.getInt("owner_id");
+				if (this.ownerId == null || this.ownerId != ownerId) {
+					endOwner();
+					startOwner(rs, ownerId);
+				}
+				Integer petId = rs.getObject("pet_id", Integer.class);
+				if (petId != null && !petId.equals(this.petId)) {
+					endPet();
+					startPet(rs, petId);
+				}
+				Integer visitId = rs.getObject("visit_id", Integer.class);
+				if (visitId != null) {
+					this.generator.writeStartObject();
+					this.generator.writeNumberField("id", visitId);
+					this.generator.writeStringField("date", date(rs, "visit_date"));
+					this.generator.writeStringField("description", rs.getString("description"));
+					this.generator.writeEndObject();
+				}
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		void finish() throws IOException {
+			endOwner();
+			this.generator.flush();
+		}
+
+		private void startOwner(ResultSet rs, int ownerId) throws SQLException, IOException {
+			this.ownerId = ownerId;
+			this.generator.writeStartObject();
+			this.generator.writeNumberField("id", ownerId);
+			this.generator.writeStringField("firstName", rs.getString("first_name"));
+			this.generator.writeStringField("lastName", rs.getString("last_name"));
+			this.generator.writeStringField("address", rs.getString("address"));
+			this.generator.writeStringField("city", rs.getString("city"));
+			this.generator.writeStringField("telephone", rs.getString("telephone"));
+			this.generator.writeArrayFieldStart("pets");
+		}
+
+		private void endOwner() throws IOException {
+			if (this.ownerId == null) {
+				return;
+			}
+			endPet();
+			this.generator.writeEndArray();
+			this.generator.writeEndObject();
+			this.generator.writeRaw('\n');
+			this.ownerId = null;
+			if (++this.owners % OwnerExporter.this.flushInterval == 0) {
+				this.generator.flush();
+			}
+		}
+
+		private void startPet(ResultSet rs, int petId) throws SQLException, IOException {
+			this.petId = petId;
+			this.generator.writeStartObject();
+			this.generator.writeNumberField("id", petId);
+			this.generator.writeStringField("name", rs.getString("pet_name"));
+			this.generator.writeStringField("birthDate", date(rs, "birth_date"));
+			this.generator.writeStringField("type", rs.getString("pet_type"));
+			this.generator.writeArrayFieldStart("visits");
+		}
+
+		private void endPet() throws IOException {
+			if (this.petId == null) {
+				return;
+			}
+			this.generator.writeEndArray();
+			this.generator.writeEndObject();
+			this.petId = null;
+		}
+
+	}
+
+	/**
+	 * Writes each joined row as it is, so an owner takes one line per visit, or one line
+	 * per pet without visits, or one line if it has no pets.
+	 */
+	private final class CsvWriter implements RowCallbackHandler {
+
+		private final Writer out;
+
+		private final String[] values = new String[CSV_COLUMNS.length];
+
+		private int ownerId = -1;
+
+		private int owners;
+
+		CsvWriter(Writer out) {
+			this.out = out;
+		}
+
+		@Override
+		public void processRow(ResultSet rs) throws SQLException {
+			int ownerId = rs.getInt("owner_id");
+			try {
+				if (ownerId != this.ownerId) {
+					if (this.owners > 0 && this.owners % OwnerExporter.this.flushInterval == 0) {
+						this.out.flush();
+					}
+					this.ownerId = ownerId;
+					this.owners++;
+				}
+				for (int i = 0; i < CSV_COLUMNS.length; i++) {
+					String column = CSV_COLUMNS[i];
+					this.values[i] = (column.endsWith("date") ? date(rs, column) : rs.getString(column));
+				}
+				writeLine(this.values);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		void writeLine(String[] values) throws IOException {
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					this.out.write(',');
+				}
+				writeValue(values[i]);
+			}
+			this.out.write("\r\n");
+		}
+
+		private void writeValue(String value) throws IOException {
+			if (value == null) {
+				return;
+			}
+			if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+					&& value.indexOf('\r') < 0) {
+				this.out.write(value);
+				return;
+			}
+			this.out.write('"');
+			this.out.write(value.replace("\"", "\"\""));
+			this.out.write('"');
+		}
+
+	}
+
+}
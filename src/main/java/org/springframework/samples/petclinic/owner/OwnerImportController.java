@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Imports owners with their pets and visits from the request body, in the NDJSON or CSV
+ * layout of the export. The body is read while it is received, one owner at a time.
+ */
+@Controller
+class OwnerImportController {
+
+	private final OwnerImporter importer;
+
+	public OwnerImportController(OwnerImporter importer) {
+		this.importer = importer;
+	}
+
+	@PostMapping(path = "/api/import", consumes = OwnerExportController.NDJSON)
+	@ResponseBody
+	public ImportReport importNdjson(HttpServletRequest request) throws IOException {
+		return this.importer.importNdjson(reader(request));
+	}
+
+	@PostMapping(path = "/api/import", consumes = "text/csv")
+	@ResponseBody
+	public ImportReport importCsv(HttpServletRequest request) throws IOException {
+		return this.importer.importCsv(reader(request));
+	}
+
+	private static BufferedReader reader(HttpServletRequest request) throws IOException {
+		String encoding = request.getCharacterEncoding();
+		Charset charset = (encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8);
+		return new BufferedReader(new InputStreamReader(request.getInputStream(), charset));
+	}
+
+}
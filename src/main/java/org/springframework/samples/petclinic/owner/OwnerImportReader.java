@@ -0,0 +1,348 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads owners with their pets and visits, one owner at a time, from the NDJSON or CSV
+ * layout written by {@link OwnerExporter}. Ids in the input only group the rows of an
+ * owner and its pets; they are not carried over. Pet types are returned by name only and
+ * are left to the caller to resolve.
+ */
+abstract class OwnerImportReader {
+
+	private final BufferedReader reader;
+
+	private int lineNumber;
+
+	private int recordLine;
+
+	OwnerImportReader(Reader reader) {
+		this.reader = (reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader));
+	}
+
+	/**
+	 * Return a reader for one JSON owner per line.
+	 */
+	static OwnerImportReader ndjson(Reader reader, ObjectMapper objectMapper) {
+		return new NdjsonReader(reader, objectMapper);
+	}
+
+	/**
+	 * Return a reader for a CSV file with a header, and one line per owner, pet and
+	 * visit.
+	 */
+	static OwnerImportReader csv(Reader reader) {
+		return new CsvReader(reader);
+	}
+
+	/**
+	 * Read the next owner.
+	 * @return the owner, or {@literal null} at the end of the input
+	 * @throws IllegalArgumentException if the record cannot be parsed; the reader is
+	 * positioned after it, so reading can continue with the next record
+	 */
+	abstract Owner next() throws IOException;
+
+	/**
+	 * Return the line on which the last record read starts.
+	 */
+	int line() {
+		return this.recordLine;
+	}
+
+	String readLine() throws IOException {
+		String line = this.reader.readLine();
+		if (line != null) {
+			this.lineNumber++;
+		}
+		return line;
+	}
+
+	int lineNumber() {
+		return this.lineNumber;
+	}
+
+	void startRecord(int line) {
+		this.recordLine = line;
+	}
+
+	static Owner owner(String firstName, String lastName, String address, String city, String telephone) {
+		Owner owner = new Owner();
+		owner.setFirstName(firstName);
+		owner.setLastName(lastName);
+		owner.setAddress(address);
+		owner.setCity(city);
+		owner.setTelephone(telephone);
+		return owner;
+	}
+
+	static Pet pet(String name, String birthDate, String type) {
+		Pet pet = new Pet();
+		pet.setName(name);
+		pet.setBirthDate(date(birthDate));
+		if (StringUtils.hasText(type)) {
+			PetType petType = new PetType();
+			petType.setName(type);
+			pet.setType(petType);
+		}
+		return pet;
+	}
+
+	static Visit visit(String date, String description) {
+		Visit visit = new Visit();
+		if (StringUtils.hasText(date)) {
+			visit.setDate(date(date));
+		}
+		visit.setDescription(description);
+		return visit;
+	}
+
+	private static LocalDate date(String value) {
+		if (!StringUtils.hasText(value)) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(value);
+		}
+		catch (DateTimeException ex) {
+			throw new IllegalArgumentException("Invalid date: " + value);
+		}
+	}
+
+	private static final class NdjsonReader extends OwnerImportReader {
+
+		private final ObjectMapper objectMapper;
+
+		NdjsonReader(Reader reader, ObjectMapper objectMapper) {
+			super(reader);
+			this.objectMapper = objectMapper;
+		}
+
+		@Override
+		Owner next() throws IOException {
+			String line;
+			do {
+				line = readLine();
+			}
+			while (line != null && line.isBlank());
+			if (line == null) {
+				return null;
+			}
+			startRecord(lineNumber());
+			JsonNode node;
+			try {
+				node = this.objectMapper.readTree(line);
+			}
+			catch (JsonProcessingException ex) {
+				throw new IllegalArgumentException("Invalid JSON: " + ex.getOriginalMessage());
+			}
+			if (!node.isObject()) {
+				throw new IllegalArgumentException("Expected a JSON object");
+			}
+			Owner owner = owner(text(node, "firstName"), text(node, "lastName"), text(node, "address"),
+					text(node, "city"), text(node, "telephone"));
+			for (JsonNode petNode : node.path("pets")) {
+				Pet pet = pet(text(petNode, "name"), text(petNode, "birthDate"), text(petNode, "type"));
+				for (JsonNode visitNode : petNode.path("visits")) {
+					pet.addVisit(visit(text(visitNode, "date"), text(visitNode, "description")));
+				}
+				owner.addPet(pet);
+			}
+			return owner;
+		}
+
+		private static String text(JsonNode node, String field) {
+			JsonNode value = node.get(field);
+			return (value != null && !value.isNull() ? value.asText() : null);
+		}
+
+	}
+
+	private static final class CsvReader extends OwnerImportReader {
+
+		private Map<String, Integer> columns;
+
+		private List<String> pending;
+
+		private int pendingLine;
+
+		private int rowLine;
+
+		CsvReader(Reader reader) {
+			super(reader);
+		}
+
+		@Override
+		Owner next() throws IOException {
+			if (this.columns == null) {
+				readHeader();
+			}
+			List<String> row = this.pending;
+			int line = this.pendingLine;
+			this.pending = null;
+			if (row == null) {
+				row = readRow();
+				line = this.rowLine;
+			}
+			if (row == null) {
+				return null;
+			}
+			startRecord(line);
+			String ownerKey = value(row, "owner_id");
+			Owner owner = null;
+			Map<String, Pet> pets = new HashMap<>();
+			IllegalArgumentException error = null;
+			while (row != null) {
+				try {
+					if (owner == null) {
+						owner = owner(value(row, "first_name"), value(row, "last_name"), value(row, "address"),
+								value(row, "city"), value(row, "telephone"));
+					}
+					addPetAndVisit(owner, pets, row);
+				}
+				catch (IllegalArgumentException ex) {
+					error = (error != null ? error : ex);
+				}
+				row = readRow();
+				if (row != null && (ownerKey == null || !ownerKey.equals(value(row, "owner_id")))) {
+					this.pending = row;
+					this.pendingLine = this.rowLine;
+					break;
+				}
+			}
+			if (error != null) {
+				throw error;
+			}
+			return owner;
+		}
+
+		private void readHeader() throws IOException {
+			List<String> header = readRow();
+			this.columns = new HashMap<>();
+			if (header == null) {
+				return;
+			}
+			for (int i = 0; i < header.size(); i++) {
+				this.columns.putIfAbsent(header.get(i).trim(), i);
+			}
+		}
+
+		private void addPetAndVisit(Owner owner, Map<String, Pet> pets, List<String> row) {
+			String name = value(row, "pet_name");
+			if (name == null) {
+				return;
+			}
+			String petKey = value(row, "pet_id");
+			Pet pet = pets.get(petKey != null ? petKey : name);
+			if (pet == null) {
+				pet = pet(name, value(row, "birth_date"), value(row, "pet_type"));
+				pets.put(petKey != null ? petKey : name, pet);
+				owner.addPet(pet);
+			}
+			String date = value(row, "visit_date");
+			String description = value(row, "description");
+			if (date != null || description != null) {
+				pet.addVisit(visit(date, description));
+			}
+		}
+
+		private String value(List<String> row, String column) {
+			Integer index = this.columns.get(column);
+			if (index == null || index >= row.size()) {
+				return null;
+			}
+			String value = row.get(index);
+			return (value.isEmpty() ? null : value);
+		}
+
+		/**
+		 * Read one CSV record, which spans several lines if a quoted value contains line
+		 * breaks.
+		 */
+		private List<String> readRow() throws IOException {
+			String line = readLine();
+			while (line != null && line.isEmpty()) {
+				line = readLine();
+			}
+			if (line == null) {
+				return null;
+			}
+			this.rowLine = lineNumber();
+			List<String> values = new ArrayList<>();
+			StringBuilder value = new StringBuilder();
+			boolean quoted = false;
+			int i = 0;
+			while (true) {
+				if (i == line.length()) {
+					if (!quoted) {
+						break;
+					}
+					String continuation = readLine();
+					if (continuation == null) {
+						throw new IllegalArgumentException("Unterminated quoted value");
+					}
+					value.append('\n');
+					line = continuation;
+					i = 0;
+					continue;
+				}
+				char c = line.charAt(i++);
+				if (quoted) {
+					if (c != '"') {
+						value.append(c);
+					}
+					else if (i < line.length() && line.charAt(i) == '"') {
+						value.append('"');
+						i++;
+					}
+					else {
+						quoted = false;
+					}
+				}
+				else if (c == '"') {
+					quoted = true;
+				}
+				else if (c == ',') {
+					values.add(value.toString());
+					value.setLength(0);
+				}
+				else {
+					value.append(c);
+				}
+			}
+			values.add(value.toString());
+			return values;
+		}
+
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports the file given by {@code petclinic.import.file} on startup: a {@code .csv} file
+ * in the layout of the CSV export, or any other file as NDJSON. To import without
+ * starting the web server, run for example:
+ *
+ * <pre class="code">
+ * java -jar petclinic.jar --petclinic.import.file=owners.ndjson --spring.main.web-application-type=none
+ * </pre>
+ */
+@Component
+@ConditionalOnProperty("petclinic.import.file")
+class OwnerImportRunner implements ApplicationRunner {
+
+	private static final Log logger = LogFactory.getLog(OwnerImportRunner.class);
+
+	private final OwnerImporter importer;
+
+	private final Path file;
+
+	public OwnerImportRunner(OwnerImporter importer, @Value("${petclinic.import.file}") Path file) {
+		this.importer = importer;
+		this.file = file;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		ImportReport report;
+		try (Reader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8)) {
+			report = (this.file.getFileName().toString().endsWith(".csv") ? this.importer.importCsv(reader)
+					: this.importer.importNdjson(reader));
+		}
+		logger.info(this.file + ": " + report);
+		for (String error : report.errors()) {
+			logger.warn(error);
+		}
+	}
+
+}
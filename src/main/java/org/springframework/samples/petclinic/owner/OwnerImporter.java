@@ -0,0 +1,340 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SimpleErrors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import javax.sql.DataSource;
+
+/**
+ * Imports owners with their pets and visits in bulk, bypassing JPA. Records are read one
+ * at a time and validated with the same rules as the owner and pet forms; valid owners
+ * are collected into chunks of {@code petclinic.import.chunk-size}, and each chunk is
+ * written with JDBC batches in a transaction of its own. A chunk that fails is rolled
+ * back and reported, and the import continues with the next one. Ids are taken from the
+ * JPA identifier generators, so imports can run next to the application.
+ */
+@Component
+class OwnerImporter {
+
+	static final int MAX_ERRORS = 100;
+
+	private static final String INSERT_OWNER = "INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_PET = "INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)";
+
+	private static final String INSERT_VISIT = "INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final EntityManager entityManager;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Validator validator;
+
+	private final PetValidator petValidator = new PetValidator();
+
+	private final PetTypeRegistry petTypes;
+
+	private final ObjectMapper objectMapper;
+
+	private final ApplicationEventPublisher events;
+
+	private final int chunkSize;
+
+	public OwnerImporter(DataSource dataSource, EntityManager entityManager,
+			PlatformTransactionManager transactionManager, Validator validator, PetTypeRegistry petTypes,
+			ObjectMapper objectMapper, ApplicationEventPublisher events,
+			@Value("${petclinic.import.chunk-size:500}") int chunkSize) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.validator = validator;
+		this.petTypes = petTypes;
+		this.objectMapper = objectMapper;
+		this.events = events;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Import one JSON owner per line, in the layout of the NDJSON export.
+	 */
+	public ImportReport importNdjson(Reader reader) throws IOException {
+		return importOwners(OwnerImportReader.ndjson(reader, this.objectMapper));
+	}
+
+	/**
+	 * Import a CSV file in the layout of the CSV export.
+	 */
+	public ImportReport importCsv(Reader reader) throws IOException {
+		return importOwners(OwnerImportReader.csv(reader));
+	}
+
+	ImportReport importOwners(OwnerImportReader reader) throws IOException {
+		long start = System.nanoTime();
+		Progress progress = new Progress();
+		List<Owner> chunk = new ArrayList<>(this.chunkSize);
+		List<Integer> lines = new ArrayList<>(this.chunkSize);
+		while (true) {
+			Owner owner;
+			try {
+				owner = reader.next();
+			}
+			catch (IllegalArgumentException ex) {
+				progress.reject(reader.line(), ex.getMessage());
+				continue;
+			}
+			if (owner == null) {
+				break;
+			}
+			String error = validate(owner);
+			if (error != null) {
+				progress.reject(reader.line(), error);
+				continue;
+			}
+			chunk.add(owner);
+			lines.add(reader.line());
+			if (chunk.size() == this.chunkSize) {
+				write(chunk, lines, progress);
+				chunk.clear();
+				lines.clear();
+			}
+		}
+		if (!chunk.isEmpty()) {
+			write(chunk, lines, progress);
+		}
+		return progress.report(System.nanoTime() - start);
+	}
+
+	/**
+	 * Validate the owner, its pets and their visits, and resolve the pet types.
+	 * @return the first error, or {@literal null} if the owner is valid
+	 */
+	private String validate(Owner owner) {
+		String error = violation(owner);
+		for (Pet pet : owner.getPets()) {
+			if (error != null) {
+				return error;
+			}
+			if (pet.getType() != null) {
+				PetType type = this.petTypes.findByName(pet.getType().getName());
+				if (type == null) {
+					return "Unknown pet type: " + pet.getType().getName();
+				}
+				pet.setType(type);
+			}
+			Errors errors = new SimpleErrors(pet, "pet");
+			this.petValidator.validate(pet, errors);
+			if (errors.hasFieldErrors()) {
+				return "pet." + errors.getFieldError().getField() + " " + errors.getFieldError().getDefaultMessage();
+			}
+			for (Visit visit : pet.getVisits()) {
+				error = (error != null ? error : violation(visit));
+			}
+		}
+		return error;
+	}
+
+	private String violation(Object entity) {
+		for (ConstraintViolation<Object> violation : this.validator.validate(entity)) {
+			return violation.getPropertyPath() + " " + violation.getMessage();
+		}
+		return null;
+	}
+
+	private void write(List<Owner> chunk, List<Integer> lines, Progress progress) {
+		try {
+			int[] counts = this.transactionTemplate.execute(status -> {
+				int[] inserted = insert(chunk);
+				this.events.publishEvent(new OwnersSavedEvent(chunk));
+				return inserted;
+			});
+			progress.written(chunk.size(), counts[0], counts[1]);
+		}
+		catch (RuntimeException ex) {
+			progress.rejectChunk(lines, NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+		}
+	}
+
+	/**
+	 * Insert the owners, then their pets, then the visits of the pets, each with one
+	 * batch per statement.
+	 * @return the number of pets and visits inserted
+	 */
+	private int[] insert(List<Owner> owners) {
+		List<Pet> pets = new ArrayList<>();
+		List<Integer> petOwnerIds = new ArrayList<>();
+		List<Visit> visits = new ArrayList<>();
+		assignIds(owners);
+		for (Owner owner : owners) {
+			for (Pet pet : owner.getPets()) {
+				pets.add(pet);
+				petOwnerIds.add(owner.getId());
+			}
+		}
+		assignIds(pets);
+		for (Pet pet : pets) {
+			for (Visit visit : pet.getVisits()) {
+				visit.setPetId(pet.getId());
+				visits.add(visit);
+			}
+		}
+		assignIds(visits);
+
+		insert(INSERT_OWNER, owners.size(), (ps, i) -> {
+			Owner owner = owners.get(i);
+			ps.setInt(1, owner.getId());
+			ps.setString(2, owner.getFirstName());
+			ps.setString(3, owner.getLastName());
+			ps.setString(4, owner.getAddress());
+			ps.setString(5, owner.getCity());
+			ps.setString(6, owner.getTelephone());
+		});
+		insert(INSERT_PET, pets.size(), (ps, i) -> {
+			Pet pet = pets.get(i);
+			ps.setInt(1, pet.getId());
+			ps.setString(2, pet.getName());
+			ps.setObject(3, pet.getBirthDate());
+			ps.setInt(4, pet.getType().getId());
+			ps.setInt(5, petOwnerIds.get(i));
+		});
+		insert(INSERT_VISIT, visits.size(), (ps, i) -> {
+			Visit visit = visits.get(i);
+			ps.setInt(1, visit.getId());
+			ps.setInt(2, visit.getPetId());
+			ps.setObject(3, visit.getDate());
+			ps.setString(4, visit.getDescription());
+		});
+		return new int[] { pets.size(), visits.size() };
+	}
+
+	/**
+	 * Take ids for the entities from the identifier generator of their entity, so they
+	 * come from the same pooled blocks as the ids assigned by JPA.
+	 */
+	private void assignIds(List<? extends BaseEntity> entities) {
+		if (entities.isEmpty()) {
+			return;
+		}
+		SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+		BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session
+			.getEntityPersister(null, entities.get(0))
+			.getGenerator();
+		for (BaseEntity entity : entities) {
+			entity.setId(((Number) generator.generate(session, entity, null, EventType.INSERT)).intValue());
+		}
+	}
+
+	/**
+	 * Insert {@code count} rows in one batch.
+	 */
+	private void insert(String sql, int count, RowSetter setter) {
+		if (count == 0) {
+			return;
+		}
+		this.jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				setter.setValues(ps, i);
+			}
+
+			@Override
+			public int getBatchSize() {
+				return count;
+			}
+
+		});
+	}
+
+	private interface RowSetter {
+
+		void setValues(PreparedStatement ps, int i) throws SQLException;
+
+	}
+
+	private static final class Progress {
+
+		private int owners;
+
+		private int pets;
+
+		private int visits;
+
+		private int rejected;
+
+		private final List<String> errors = new ArrayList<>();
+
+		void written(int owners, int pets, int visits) {
+			this.owners += owners;
+			this.pets += pets;
+			this.visits += visits;
+		}
+
+		void reject(int line, String message) {
+			this.rejected++;
+			error("Line " + line + ": " + message);
+		}
+
+		void rejectChunk(List<Integer> lines, String message) {
+			this.rejected += lines.size();
+			error("Lines " + lines.get(0) + "-" + lines.get(lines.size() - 1) + ": " + message);
+		}
+
+		private void error(String error) {
+			if (this.errors.size() < MAX_ERRORS) {
+				this.errors.add(error);
+			}
+		}
+
+		ImportReport report(long elapsedNanos) {
+			long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+			double ownersPerSecond = (elapsedNanos > 0 ? this.owners * 1e9 / elapsedNanos : 0);
+			return new ImportReport(this.owners, this.pets, this.visits, this.rejected, elapsedMillis, ownersPerSecond,
+					List.copyOf(this.errors));
+		}
+
+	}
+
+}
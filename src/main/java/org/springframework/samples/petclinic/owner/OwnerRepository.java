@@ -15,15 +15,28 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository class for <code>Owner</code> domain objects All method names are compliant
  * with Spring Data naming conventions so this interface can easily be extended for Spring
@@ -38,24 +51,163 @@ import org.springframework.transaction.annotation.Transactional;
 public interface OwnerRepository extends Repository<Owner, Integer> {
 
 	/**
-	 * Retrieve all {@link PetType}s from the data store.
+	 * Retrieve all {@link PetType}s from the data store. The result is kept in the
+	 * Hibernate query cache until the {@code types} table is written.
 	 * @return a Collection of {@link PetType}s.
 	 */
 	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	@Transactional(readOnly = true)
 	List<PetType> findPetTypes();
 
 	/**
 	 * Retrieve {@link Owner}s from the data store by last name, returning all owners
 	 * whose last name <i>starts</i> with the given name.
+	 * <p>
+	 * The search runs in two phases: the requested page of owner ids is selected first
+	 * (with a separate count query), then the owners on that page are loaded together
+	 * with their pets in a single query. The number of statements per page therefore
+	 * stays constant instead of growing with the number of owners and pets on the page.
 	 * @param lastName Value to search for
+	 * @param pageable the page to return
 	 * @return a Collection of matching {@link Owner}s (or an empty Collection if none
 	 * found)
 	 */
+	@Transactional(readOnly = true)
+	default Page<Owner> findByLastName(String lastName, Pageable pageable) {
+		Page<Integer> ids = findIdsByLastName(lastName, pageable);
+		if (ids.isEmpty()) {
+			return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+		}
+		Map<Integer, Owner> owners = findAllWithPetsByIdIn(ids.getContent()).stream()
+			.collect(Collectors.toMap(Owner::getId, Function.identity()));
+		return ids.map(owners::get);
+	}
 
-	@Query("SELECT DISTINCT owner FROM Owner owner left join  owner.pets WHERE owner.lastName LIKE :lastName% ")
+	/**
+	 * Retrieve a page of {@link Owner} ids from the data store, selecting all owners
+	 * whose last name <i>starts</i> with the given name.
+	 * @param lastName Value to search for
+	 * @param pageable the page to return
+	 * @return a page of owner ids, ordered by id
+	 */
+	@Query(value = "SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% ORDER BY owner.id",
+			countQuery = "SELECT COUNT(owner) FROM Owner owner WHERE owner.lastName LIKE :lastName%")
 	@Transactional(readOnly = true)
-	Page<Owner> findByLastName(@Param("lastName") String lastName, Pageable pageable);
+	Page<Integer> findIdsByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+	/**
+	 * Retrieve a page of {@link Owner}s from the data store by last name, ordered by last
+	 * name and id, returning all owners whose last name <i>starts</i> with the given
+	 * name.
+	 * <p>
+	 * Unlike {@link #findByLastName(String, Pageable)}, the page is selected by seeking
+	 * to the position of the given cursor in the {@code (last_name, id)} index instead of
+	 * skipping an offset, and no count is needed, so reading a deep page costs the same
+	 * as reading the first one. The owners on the page are then loaded together with
+	 * their pets in a single query.
+	 * @param lastName Value to search for
+	 * @param cursor the position to read from, or {@literal null} for the first page
+	 * @param size the maximum number of owners on the page
+	 * @return the page of matching {@link Owner}s with the cursors to its neighbours
+	 */
+	@Transactional(readOnly = true)
+	default OwnerWindow findByLastName(String lastName, OwnerCursor cursor, int size) {
+		Limit limit = Limit.of(size + 1);
+		List<Integer> ids;
+		if (cursor == null) {
+			ids = findFirstIdsByLastName(lastName, limit);
+		}
+		else if (cursor.forward()) {
+			ids = findIdsByLastNameAfter(lastName, cursor.lastName(), cursor.id(), limit);
+		}
+		else {
+			ids = findIdsByLastNameBefore(lastName, cursor.lastName(), cursor.id(), limit);
+		}
+		boolean more = ids.size() > size;
+		if (more) {
+			ids = ids.subList(0, size);
+		}
+		if (cursor != null && !cursor.forward()) {
+			ids = new ArrayList<>(ids);
+			Collections.reverse(ids);
+		}
+		List<Owner> owners = List.of();
+		if (!ids.isEmpty()) {
+			Map<Integer, Owner> byId = findAllWithPetsByIdIn(ids).stream()
+				.collect(Collectors.toMap(Owner::getId, Function.identity()));
+			owners = ids.stream().map(byId::get).toList();
+		}
+		if (cursor == null) {
+			return OwnerWindow.of(owners, false, more);
+		}
+		return cursor.forward() ? OwnerWindow.of(owners, true, more) : OwnerWindow.of(owners, more, true);
+	}
+
+	/**
+	 * Retrieve the ids of the first {@link Owner}s, ordered by last name and id, whose
+	 * last name <i>starts</i> with the given name.
+	 * @param lastName Value to search for
+	 * @param limit the maximum number of ids to return
+	 * @return the owner ids
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% ORDER BY owner.lastName, owner.id")
+	@Transactional(readOnly = true)
+	List<Integer> findFirstIdsByLastName(@Param("lastName") String lastName, Limit limit);
+
+	/**
+	 * Retrieve the ids of the {@link Owner}s following the given position, ordered by
+	 * last name and id, whose last name <i>starts</i> with the given name.
+	 * @param lastName Value to search for
+	 * @param afterLastName the last name at the position
+	 * @param afterId the id at the position
+	 * @param limit the maximum number of ids to return
+	 * @return the owner ids
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% "
+			+ "AND (owner.lastName, owner.id) > (:afterLastName, :afterId) ORDER BY owner.lastName, owner.id")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsByLastNameAfter(@Param("lastName") String lastName,
+			@Param("afterLastName") String afterLastName, @Param("afterId") Integer afterId, Limit limit);
+
+	/**
+	 * Retrieve the ids of the {@link Owner}s preceding the given position, ordered by
+	 * last name and id <i>descending</i>, whose last name <i>starts</i> with the given
+	 * name.
+	 * @param lastName Value to search for
+	 * @param beforeLastName the last name at the position
+	 * @param beforeId the id at the position
+	 * @param limit the maximum number of ids to return
+	 * @return the owner ids
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE owner.lastName LIKE :lastName% "
+			+ "AND (owner.lastName, owner.id) < (:beforeLastName, :beforeId) "
+			+ "ORDER BY owner.lastName DESC, owner.id DESC")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsByLastNameBefore(@Param("lastName") String lastName,
+			@Param("beforeLastName") String beforeLastName, @Param("beforeId") Integer beforeId, Limit limit);
+
+	/**
+	 * Count the {@link Owner}s whose last name <i>starts</i> with the given name. The
+	 * count is cached until owners are saved, and for a short time at most, so it is only
+	 * an approximate total.
+	 * @param lastName Value to search for
+	 * @return the number of matching owners
+	 */
+	@Cacheable("ownerCounts")
+	@Transactional(readOnly = true)
+	long countByLastNameStartingWith(String lastName);
+
+	/**
+	 * Retrieve the {@link Owner}s with the given ids, fetching their pets and pet types
+	 * in the same query.
+	 * @param ids the ids of the owners to load
+	 * @return the matching {@link Owner}s, in no particular order
+	 */
+	@Query("SELECT DISTINCT owner FROM Owner owner LEFT JOIN FETCH owner.pets pet LEFT JOIN FETCH pet.type "
+			+ "WHERE owner.id IN :ids")
+	@Transactional(readOnly = true)
+	List<Owner> findAllWithPetsByIdIn(@Param("ids") Collection<Integer> ids);
 
 	/**
 	 * Retrieve an {@link Owner} from the data store by id.
@@ -66,6 +218,76 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 	@Transactional(readOnly = true)
 	Owner findById(@Param("id") Integer id);
 
+	/**
+	 * Retrieve the last name of an {@link Owner} from the data store by id.
+	 * @param id the id to search for
+	 * @return the last name, or {@literal null} if the owner is not found
+	 */
+	@Query("SELECT owner.lastName FROM Owner owner WHERE owner.id = :id")
+	@Transactional(readOnly = true)
+	String findLastNameById(@Param("id") Integer id);
+
+	/**
+	 * Retrieve a page of {@link OwnerSummary owner summaries}, ordered by last name and
+	 * id, whose last name <i>starts</i> with the given name.
+	 * <p>
+	 * Only the columns of the summary are selected into records, so no entities are
+	 * loaded, snapshotted for dirty checking or kept in the persistence context. Pages
+	 * are cached until owners are saved, see {@link OwnerApiController#ownersSaved}.
+	 * @param lastName Value to search for
+	 * @param cursor the position to read after, or {@literal null} for the first page
+	 * @param size the maximum number of owners on the page
+	 * @return the page of summaries with the cursor to the next page
+	 */
+	@Cacheable("ownerSummaries")
+	@Transactional(readOnly = true)
+	default OwnerSummaryPage findSummariesByLastName(String lastName, OwnerCursor cursor, int size) {
+		Limit limit = Limit.of(size + 1);
+		List<OwnerSummary> owners = (cursor != null)
+				? findSummariesByLastNameAfter(lastName, cursor.lastName(), cursor.id(), limit)
+				: findFirstSummariesByLastName(lastName, limit);
+		return OwnerSummaryPage.of(owners, size);
+	}
+
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerSummary("
+			+ "owner.id, owner.firstName, owner.lastName, owner.city, owner.telephone) "
+			+ "FROM Owner owner WHERE owner.lastName LIKE :lastName% ORDER BY owner.lastName, owner.id")
+	@Transactional(readOnly = true)
+	List<OwnerSummary> findFirstSummariesByLastName(@Param("lastName") String lastName, Limit limit);
+
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerSummary("
+			+ "owner.id, owner.firstName, owner.lastName, owner.city, owner.telephone) "
+			+ "FROM Owner owner WHERE owner.lastName LIKE :lastName% "
+			+ "AND (owner.lastName, owner.id) > (:afterLastName, :afterId) ORDER BY owner.lastName, owner.id")
+	@Transactional(readOnly = true)
+	List<OwnerSummary> findSummariesByLastNameAfter(@Param("lastName") String lastName,
+			@Param("afterLastName") String afterLastName, @Param("afterId") Integer afterId, Limit limit);
+
+	/**
+	 * Retrieve the {@link OwnerDetails} of an owner with its pets, in two queries that
+	 * select only the columns of the view, without loading any entities.
+	 * @param id the id of the owner
+	 * @return the owner details, or {@literal null} if not found
+	 */
+	@Transactional(readOnly = true)
+	default OwnerDetails findDetailsById(Integer id) {
+		OwnerDetails owner = findOwnerDetailsById(id);
+		return (owner != null) ? owner.withPets(findPetSummariesByOwnerId(id)) : null;
+	}
+
+	@Query("SELECT new org.springframework.samples.petclinic.owner.OwnerDetails("
+			+ "owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone) "
+			+ "FROM Owner owner WHERE owner.id = :id")
+	@Transactional(readOnly = true)
+	OwnerDetails findOwnerDetailsById(@Param("id") Integer id);
+
+	@Query("SELECT new org.springframework.samples.petclinic.owner.PetSummary("
+			+ "pet.id, pet.name, pet.birthDate, type.name) "
+			+ "FROM Owner owner JOIN owner.pets pet LEFT JOIN pet.type type WHERE owner.id = :ownerId "
+			+ "ORDER BY pet.name")
+	@Transactional(readOnly = true)
+	List<PetSummary> findPetSummariesByOwnerId(@Param("ownerId") Integer ownerId);
+
 	/**
 	 * Save an {@link Owner} to the data store, either inserting or updating it.
 	 * @param owner the {@link Owner} to save
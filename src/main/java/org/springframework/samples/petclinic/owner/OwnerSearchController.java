@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.samples.petclinic.system.QueryBudget;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Finds owners by any part of their name, address or city, tolerating typos. Matching
+ * owner ids are ranked by the {@link OwnerSearchIndex}, and only the best
+ * {@code petclinic.search.limit} owners are loaded from the data store.
+ */
+@Controller
+class OwnerSearchController {
+
+	private final OwnerSearchIndex index;
+
+	private final OwnerRepository owners;
+
+	private final int limit;
+
+	public OwnerSearchController(OwnerSearchIndex index, OwnerRepository owners,
+			@Value("${petclinic.search.limit:20}") int limit) {
+		this.index = index;
+		this.owners = owners;
+		this.limit = limit;
+	}
+
+	@GetMapping("/owners/search")
+	@QueryBudget(max = 1)
+	public String search(@RequestParam(name = "q", defaultValue = "") String query, Model model) {
+		List<Integer> ids = this.index.search(query, this.limit);
+		List<Owner> results = List.of();
+		if (!ids.isEmpty()) {
+			Map<Integer, Owner> byId = this.owners.findAllWithPetsByIdIn(ids)
+				.stream()
+				.collect(Collectors.toMap(Owner::getId, Function.identity()));
+			results = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+		}
+		if (results.isEmpty()) {
+			// no owners found
+			model.addAttribute("owner", new Owner());
+			model.addAttribute("query", query);
+			model.addAttribute("queryNotFound", !query.isBlank());
+			return "owners/findOwners";
+		}
+
+		if (results.size() == 1) {
+			// 1 owner found
+			return "redirect:/owners/" + results.get(0).getId();
+		}
+
+		// multiple owners found, best matches first
+		model.addAttribute("listOwners", results);
+		return "owners/ownersList";
+	}
+
+}
@@ -0,0 +1,433 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+
+/**
+ * In-memory trigram index over the first name, last name, address and city of all
+ * {@link Owner}s, for searches that tolerate typos and match anywhere in those fields.
+ * <p>
+ * Text is folded to lower case without accents and split into words. Each word is padded
+ * with two spaces in front and one behind and cut into overlapping trigrams; every
+ * trigram maps to the sorted ids of the owners whose text contains it. A query is cut the
+ * same way, and an owner matches if it either contains every query word, or shares at
+ * least {@code petclinic.search.similarity} of the query trigrams. Query words shorter
+ * than a trigram only match the start of a word. Owners containing every word rank first,
+ * then owners by the share of trigrams they have in common with the query.
+ * <p>
+ * The index is filled from a single scan of the owners table when the application is
+ * ready, and kept current by {@link OwnersSavedEvent}s. Owners are held in arrays indexed
+ * by id, which suits the dense ids taken from the pooled sequences. Searches only return
+ * owner ids, so the data store is not touched until the owners are loaded.
+ */
+@Component
+public class OwnerSearchIndex {
+
+	private static final String QUERY = "SELECT id, first_name, last_name, address, city FROM owners";
+
+	private static final int MAX_QUERY_LENGTH = 80;
+
+	private static final Comparator<Match> RANKING = Comparator.comparing(Match::substring)
+		.thenComparingDouble(Match::similarity)
+		.reversed()
+		.thenComparingInt(Match::id);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final double similarity;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private Document[] documents = new Document[64];
+
+	private int size;
+
+	private final Map<Long, Postings> postings = new HashMap<>();
+
+	public OwnerSearchIndex(DataSource dataSource, @Value("${petclinic.search.fetch-size:500}") int fetchSize,
+			@Value("${petclinic.search.similarity:0.5}") double similarity) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(fetchSize);
+		this.similarity = similarity;
+	}
+
+	/**
+	 * Replace the contents of the index with all owners in the data store, read from a
+	 * single forward-only cursor.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		this.lock.writeLock().lock();
+		try {
+			this.documents = new Document[64];
+			this.size = 0;
+			this.postings.clear();
+			this.jdbcTemplate.query(QUERY, (rs) -> {
+				put(rs.getInt(1), text(rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)));
+			});
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Index the saved owners, replacing their previous entries. Runs after the
+	 * transaction that published the event has committed, or at once if there is none.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void ownersSaved(OwnersSavedEvent event) {
+		this.lock.writeLock().lock();
+		try {
+			for (Owner owner : event.owners()) {
+				if (!owner.isNew()) {
+					put(owner.getId(),
+							text(owner.getFirstName(), owner.getLastName(), owner.getAddress(), owner.getCity()));
+				}
+			}
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Return the ids of the owners matching the given text, best matches first.
+	 * @param query the words to search for
+	 * @param limit the maximum number of ids to return
+	 * @return the matching owner ids, or an empty list if none found
+	 */
+	public List<Integer> search(String query, int limit) {
+		String normalized = normalize(query);
+		if (normalized.length() > MAX_QUERY_LENGTH) {
+			normalized = normalized.substring(0, MAX_QUERY_LENGTH);
+		}
+		String[] words = words(normalized);
+		if (words.length == 0 || limit <= 0) {
+			return List.of();
+		}
+		Map<Long, Boolean> trigrams = new LinkedHashMap<>();
+		for (String word : words) {
+			trigrams(word, (trigram, required) -> trigrams.merge(trigram, required, Boolean::logicalOr));
+		}
+		int count = trigrams.size();
+		int requiredCount = (int) trigrams.values().stream().filter(Boolean::booleanValue).count();
+		int minimum = Math.max(1, (int) Math.ceil(this.similarity * count));
+		// the required trigrams of words up to a trigram long are proof enough
+		boolean verify = Arrays.stream(words).anyMatch((word) -> word.length() > 3);
+		PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+		this.lock.readLock().lock();
+		try {
+			List<Postings> lists = new ArrayList<>(count);
+			List<Boolean> required = new ArrayList<>(count);
+			trigrams.forEach((trigram, isRequired) -> {
+				Postings postings = this.postings.get(trigram);
+				if (postings != null) {
+					lists.add(postings);
+					required.add(isRequired);
+				}
+			});
+			long total = 0;
+			for (Postings postings : lists) {
+				total += postings.size;
+			}
+			// common trigrams in the low byte, common required trigrams in the high byte
+			Counts counts = new Counts((int) Math.min(total, this.size), this.documents.length);
+			for (int i = 0; i < lists.size(); i++) {
+				Postings postings = lists.get(i);
+				char increment = (char) (required.get(i) ? 0x101 : 1);
+				for (int j = 0; j < postings.size; j++) {
+					counts.add(postings.ids[j], increment);
+				}
+			}
+			for (int slot = 0; slot < counts.capacity(); slot++) {
+				int id = counts.id(slot);
+				if (id < 0) {
+					continue;
+				}
+				int common = counts.count(slot) & 0xFF;
+				int commonRequired = counts.count(slot) >>> 8;
+				if (common < minimum && commonRequired < requiredCount) {
+					continue;
+				}
+				double share = (double) common / count;
+				Match worst = (best.size() == limit ? best.peek() : null);
+				if (worst != null && worst.substring()
+						&& (worst.similarity() > share || worst.similarity() == share && worst.id() < id)) {
+					// cannot rank above the worst of the best matches
+					continue;
+				}
+				boolean substring = commonRequired == requiredCount && (!verify || this.documents[id].contains(words));
+				if (substring || common >= minimum) {
+					best.add(new Match(id, substring, share));
+					if (best.size() > limit) {
+						best.poll();
+					}
+				}
+			}
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+		return best.stream().sorted(RANKING).map(Match::id).toList();
+	}
+
+	/**
+	 * Return the number of indexed owners.
+	 */
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.size;
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	private void put(int id, String text) {
+		if (id >= this.documents.length) {
+			this.documents = Arrays.copyOf(this.documents, Math.max(id + 1, this.documents.length * 2));
+		}
+		Document previous = this.documents[id];
+		if (previous == null) {
+			this.size++;
+		}
+		else {
+			for (long trigram : previous.trigrams()) {
+				Postings postings = this.postings.get(trigram);
+				if (postings.remove(id) && postings.size == 0) {
+					this.postings.remove(trigram);
+				}
+			}
+		}
+		Map<Long, Boolean> trigrams = new LinkedHashMap<>();
+		for (String word : words(text)) {
+			trigrams(word, (trigram, interior) -> trigrams.put(trigram, interior));
+		}
+		long[] keys = new long[trigrams.size()];
+		int i = 0;
+		for (long trigram : trigrams.keySet()) {
+			this.postings.computeIfAbsent(trigram, (key) -> new Postings()).add(id);
+			keys[i++] = trigram;
+		}
+		this.documents[id] = new Document(text, keys);
+	}
+
+	private static String text(String... fields) {
+		StringBuilder text = new StringBuilder();
+		for (String field : fields) {
+			if (field != null) {
+				text.append(normalize(field)).append(' ');
+			}
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Fold the given text to lower case letters and digits without accents, separated by
+	 * single spaces.
+	 */
+	static String normalize(String text) {
+		if (text == null) {
+			return "";
+		}
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		StringBuilder normalized = new StringBuilder(decomposed.length());
+		boolean space = true;
+		for (int i = 0; i < decomposed.length(); i++) {
+			char c = decomposed.charAt(i);
+			if (Character.getType(c) == Character.NON_SPACING_MARK) {
+				continue;
+			}
+			if (Character.isLetterOrDigit(c)) {
+				normalized.append(Character.toLowerCase(c));
+				space = false;
+			}
+			else if (!space) {
+				normalized.append(' ');
+				space = true;
+			}
+		}
+		return normalized.toString().trim();
+	}
+
+	private static String[] words(String normalized) {
+		return normalized.isBlank() ? new String[0] : normalized.trim().split(" ");
+	}
+
+	/**
+	 * Cut the word, padded with two spaces in front and one behind, into trigrams. The
+	 * required trigrams are those any text containing the word has as well: the ones
+	 * without padding, or for a word shorter than a trigram, the one of a word starting
+	 * with it.
+	 */
+	private static void trigrams(String word, TrigramConsumer consumer) {
+		String padded = "  " + word + " ";
+		for (int i = 0; i + 3 <= padded.length(); i++) {
+			long trigram = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+			boolean interior = i >= 2 && i + 3 < padded.length();
+			consumer.accept(trigram, interior || (word.length() < 3 && i == word.length() - 1));
+		}
+	}
+
+	private interface TrigramConsumer {
+
+		void accept(long trigram, boolean required);
+
+	}
+
+	/**
+	 * The normalized text of an owner and its trigrams.
+	 */
+	private record Document(String text, long[] trigrams) {
+
+		boolean contains(String[] words) {
+			for (String word : words) {
+				if (!this.text.contains(word)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+	private record Match(int id, boolean substring, double similarity) {
+
+	}
+
+	/**
+	 * Trigram counts by owner id for one search, in an open addressing table sized by the
+	 * postings of the query rather than by the highest owner id. Queries whose postings
+	 * cover a large part of the owners count in an array indexed by id instead, which is
+	 * smaller then.
+	 */
+	private static final class Counts {
+
+		// owner id + 1, or 0 for a free slot; null when counting by id
+		private final int[] ids;
+
+		private final char[] counts;
+
+		private final int mask;
+
+		Counts(int expected, int idLimit) {
+			int capacity = Integer.highestOneBit(Math.max(expected, 4) * 2 - 1) << 1;
+			if ((long) capacity * 3 >= idLimit) {
+				this.ids = null;
+				this.counts = new char[idLimit];
+				this.mask = 0;
+			}
+			else {
+				this.ids = new int[capacity];
+				this.counts = new char[capacity];
+				this.mask = capacity - 1;
+			}
+		}
+
+		void add(int id, char increment) {
+			if (this.ids == null) {
+				this.counts[id] += increment;
+				return;
+			}
+			int hash = id * 0x9E3779B9;
+			int slot = (hash ^ (hash >>> 16)) & this.mask;
+			while (this.ids[slot] != 0 && this.ids[slot] != id + 1) {
+				slot = (slot + 1) & this.mask;
+			}
+			this.ids[slot] = id + 1;
+			this.counts[slot] += increment;
+		}
+
+		int capacity() {
+			return this.counts.length;
+		}
+
+		/**
+		 * Return the owner id in the given slot, or -1 if it is free.
+		 */
+		int id(int slot) {
+			if (this.ids == null) {
+				return (this.counts[slot] != 0 ? slot : -1);
+			}
+			return this.ids[slot] - 1;
+		}
+
+		char count(int slot) {
+			return this.counts[slot];
+		}
+
+	}
+
+	/**
+	 * Ids of the owners with a trigram, in ascending order.
+	 */
+	private static final class Postings {
+
+		private int[] ids = new int[4];
+
+		private int size;
+
+		void add(int id) {
+			int index = Arrays.binarySearch(this.ids, 0, this.size, id);
+			if (index >= 0) {
+				return;
+			}
+			index = -index - 1;
+			if (this.size == this.ids.length) {
+				this.ids = Arrays.copyOf(this.ids, this.size * 2);
+			}
+			System.arraycopy(this.ids, index, this.ids, index + 1, this.size - index);
+			this.ids[index] = id;
+			this.size++;
+		}
+
+		boolean remove(int id) {
+			int index = Arrays.binarySearch(this.ids, 0, this.size, id);
+			if (index < 0) {
+				return false;
+			}
+			System.arraycopy(this.ids, index + 1, this.ids, index, this.size - index - 1);
+			this.size--;
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+
+import org.springframework.samples.petclinic.system.QueryBudget;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Suggests last names while they are typed into the find owners form, from the names held
+ * in memory by the {@link LastNameSuggester}.
+ */
+@Controller
+class OwnerSuggestionController {
+
+	private final LastNameSuggester suggester;
+
+	public OwnerSuggestionController(LastNameSuggester suggester) {
+		this.suggester = suggester;
+	}
+
+	@GetMapping("/api/owners/suggest")
+	@ResponseBody
+	@QueryBudget(max = 0)
+	public List<LastNameSuggestion> suggest(@RequestParam(defaultValue = "") String prefix,
+			@RequestParam(defaultValue = "10") int limit) {
+		return this.suggester.suggest(prefix, Math.max(0, Math.min(limit, LastNameSuggester.MAX_SUGGESTIONS)));
+	}
+
+}
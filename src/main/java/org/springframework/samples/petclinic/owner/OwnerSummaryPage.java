@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+
+/**
+ * A page of {@link OwnerSummary owner summaries} ordered by last name and id.
+ *
+ * @param owners the owners on this page
+ * @param next the encoded {@link OwnerCursor} to the following page, or {@literal null}
+ * if this is the last page
+ */
+public record OwnerSummaryPage(List<OwnerSummary> owners, String next) {
+
+	/**
+	 * Create a page from summaries read with a limit of one more than the page size: the
+	 * extra summary, if present, only signals that there are more.
+	 */
+	static OwnerSummaryPage of(List<OwnerSummary> owners, int size) {
+		if (owners.size() > size) {
+			OwnerSummary last = owners.get(size - 1);
+			return new OwnerSummaryPage(List.copyOf(owners.subList(0, size)),
+					new OwnerCursor(true, last.lastName(), last.id()).encode());
+		}
+		return new OwnerSummaryPage(List.copyOf(owners), null);
+	}
+
+}
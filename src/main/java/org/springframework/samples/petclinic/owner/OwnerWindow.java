@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+
+/**
+ * A page of owners ordered by last name and id, read from a {@link OwnerCursor} rather
+ * than from an offset.
+ *
+ * @param owners the owners on this page
+ * @param previous the cursor to the preceding page, or {@literal null} if this is the
+ * first page
+ * @param next the cursor to the following page, or {@literal null} if this is the last
+ * page
+ */
+public record OwnerWindow(List<Owner> owners, OwnerCursor previous, OwnerCursor next) {
+
+	static OwnerWindow of(List<Owner> owners, boolean hasPrevious, boolean hasNext) {
+		if (owners.isEmpty()) {
+			return new OwnerWindow(owners, null, null);
+		}
+		OwnerCursor previous = hasPrevious ? OwnerCursor.before(owners.get(0)) : null;
+		OwnerCursor next = hasNext ? OwnerCursor.after(owners.get(owners.size() - 1)) : null;
+		return new OwnerWindow(owners, previous, next);
+	}
+
+}
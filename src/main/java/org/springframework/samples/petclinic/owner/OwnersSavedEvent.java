@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Application event published after {@link Owner}s have been created or updated, so that
+ * the {@link OwnerSearchIndex} picks up their new names and addresses. When published in
+ * a transaction, the index is only updated once the transaction commits.
+ *
+ * @param owners the saved owners
+ * @param previousLastNames the last names of the updated owners before the update, by
+ * owner id; owners without one were created
+ */
+public record OwnersSavedEvent(List<Owner> owners, Map<Integer, String> previousLastNames) {
+
+	public OwnersSavedEvent {
+		owners = List.copyOf(owners);
+		previousLastNames = Map.copyOf(previousLastNames);
+	}
+
+	public OwnersSavedEvent(List<Owner> owners) {
+		this(owners, Map.of());
+	}
+
+	public OwnersSavedEvent(Owner owner) {
+		this(List.of(owner));
+	}
+
+	public OwnersSavedEvent(Owner owner, String previousLastName) {
+		this(List.of(owner), (previousLastName != null) ? Map.of(owner.getId(), previousLastName) : Map.of());
+	}
+
+	/**
+	 * Return the last name of the owner before the update.
+	 * @return the previous last name, or {@literal null} if the owner was created
+	 */
+	public String previousLastName(Owner owner) {
+		return (owner.isNew() ? null : this.previousLastNames.get(owner.getId()));
+	}
+
+}
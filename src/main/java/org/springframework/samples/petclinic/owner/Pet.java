@@ -19,6 +19,7 @@ import java.time.LocalDate;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.samples.petclinic.model.NamedEntity;
@@ -44,6 +45,12 @@ import jakarta.persistence.Table;
 @Table(name = "pets")
 public class Pet extends NamedEntity {
 
+	/**
+	 * Counts the changes to the names and ids of all pets, so that an {@link Owner} can
+	 * tell that its pet index may be stale without checking each of its pets.
+	 */
+	private static final AtomicLong changes = new AtomicLong();
+
 	@Column(name = "birth_date")
 	@DateTimeFormat(pattern = "yyyy-MM-dd")
 	private LocalDate birthDate;
@@ -52,11 +59,23 @@ public class Pet extends NamedEntity {
 	@JoinColumn(name = "type_id")
 	private PetType type;
 
-	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
 	@JoinColumn(name = "pet_id")
 	@OrderBy("visit_date ASC")
 	private Set<Visit> visits = new LinkedHashSet<>();
 
+	@Override
+	public void setId(Integer id) {
+		super.setId(id);
+		changes.incrementAndGet();
+	}
+
+	@Override
+	public void setName(String name) {
+		super.setName(name);
+		changes.incrementAndGet();
+	}
+
 	public void setBirthDate(LocalDate birthDate) {
 		this.birthDate = birthDate;
 	}
@@ -81,4 +100,8 @@ public class Pet extends NamedEntity {
 		getVisits().add(visit);
 	}
 
+	static long changes() {
+		return changes.get();
+	}
+
 }
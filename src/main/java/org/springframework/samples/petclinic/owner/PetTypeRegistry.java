@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory registry of all {@link PetType}s, indexed by name and by id. Pet types almost
+ * never change, so they are loaded once when the application is ready and kept in an
+ * immutable snapshot until a {@link PetTypesChangedEvent} is published.
+ *
+ * @see PetTypeFormatter
+ */
+@Component
+public class PetTypeRegistry {
+
+	private final OwnerRepository owners;
+
+	private volatile Snapshot snapshot;
+
+	public PetTypeRegistry(OwnerRepository owners) {
+		this.owners = owners;
+	}
+
+	/**
+	 * Return all {@link PetType}s, ordered by name.
+	 * @return an unmodifiable list of {@link PetType}s
+	 */
+	public List<PetType> findAll() {
+		return snapshot().types();
+	}
+
+	/**
+	 * Return the {@link PetType} with the given name.
+	 * @param name the name to look up
+	 * @return the {@link PetType}, or {@literal null} if none found
+	 */
+	public PetType findByName(String name) {
+		return snapshot().byName().get(name);
+	}
+
+	/**
+	 * Return the {@link PetType} with the given id.
+	 * @param id the id to look up
+	 * @return the {@link PetType}, or {@literal null} if none found
+	 */
+	public PetType findById(Integer id) {
+		return snapshot().byId().get(id);
+	}
+
+	/**
+	 * Reload all {@link PetType}s from the data store and replace the current snapshot.
+	 */
+	@EventListener({ ApplicationReadyEvent.class, PetTypesChangedEvent.class })
+	public void refresh() {
+		List<PetType> types = List.copyOf(this.owners.findPetTypes());
+		Map<String, PetType> byName = new HashMap<>();
+		Map<Integer, PetType> byId = new HashMap<>();
+		for (PetType type : types) {
+			if (type.getName() != null) {
+				byName.putIfAbsent(type.getName(), type);
+			}
+			if (!type.isNew()) {
+				byId.put(type.getId(), type);
+			}
+		}
+		this.snapshot = new Snapshot(types, Map.copyOf(byName), Map.copyOf(byId));
+	}
+
+	private Snapshot snapshot() {
+		Snapshot snapshot = this.snapshot;
+		if (snapshot == null) {
+			refresh();
+			snapshot = this.snapshot;
+		}
+		return snapshot;
+	}
+
+	private record Snapshot(List<PetType> types, Map<String, PetType> byName, Map<Integer, PetType> byId) {
+
+	}
+
+}
@@ -15,8 +15,13 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.time.LocalDate;
 import java.util.Map;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.samples.petclinic.owner.OwnerAggregateLoader.PetVisits;
+import org.springframework.samples.petclinic.system.QueryBudget;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
@@ -25,6 +30,8 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import jakarta.validation.Valid;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
@@ -39,58 +46,85 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 @Controller
 class VisitController {
 
-	private final OwnerRepository owners;
+	private final VisitRepository visits;
 
-	public VisitController(OwnerRepository owners) {
-		this.owners = owners;
+	private final OwnerAggregateLoader ownerLoader;
+
+	public VisitController(VisitRepository visits, OwnerAggregateLoader ownerLoader) {
+		this.visits = visits;
+		this.ownerLoader = ownerLoader;
 	}
 
 	@InitBinder
 	public void setAllowedFields(WebDataBinder dataBinder) {
-		dataBinder.setDisallowedFields("id");
+		dataBinder.setDisallowedFields("id", "petId");
 	}
 
-	/**
-	 * Called before each and every @RequestMapping annotated method. 2 goals: - Make sure
-	 * we always have fresh data - Since we do not use the session scope, make sure that
-	 * Pet object always has an id (Even though id is not part of the form fields)
-	 * @param petId
-	 * @return Pet
-	 */
 	@ModelAttribute("visit")
-	public Visit loadPetWithVisit(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
-			Map<String, Object> model) {
-		Owner owner = this.owners.findById(ownerId);
-
-		Pet pet = owner.getPet(petId);
-		model.put("pet", pet);
-		model.put("owner", owner);
+	public Visit newVisit() {
+		return new Visit();
+	}
 
-		Visit visit = new Visit();
-		pet.addVisit(visit);
-		return visit;
+	/**
+	 * Put the owner, the pet and its previous visits into the model, for rendering the
+	 * visit form. Only needed when the form is displayed: a valid submission is written
+	 * without loading the owner. The owner and the visits are read in one transaction,
+	 * the visits by pet id, as the view is rendered after the transaction has ended and
+	 * the pet's visits are loaded lazily.
+	 */
+	private void loadPetWithOwner(int ownerId, int petId, Map<String, Object> model) {
+		PetVisits pet = this.ownerLoader.findWithPetVisits(ownerId, petId);
+		if (pet == null) {
+			throw new IllegalArgumentException("Owner ID not found: " + ownerId);
+		}
+		model.put("pet", pet.pet());
+		model.put("owner", pet.owner());
+		model.put("previousVisits", pet.visits());
 	}
 
-	// Spring MVC calls method loadPetWithVisit(...) before initNewVisitForm is
-	// called
 	@GetMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String initNewVisitForm() {
+	@QueryBudget(max = 2)
+	public String initNewVisitForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			Map<String, Object> model) {
+		loadPetWithOwner(ownerId, petId, model);
 		return "pets/createOrUpdateVisitForm";
 	}
 
-	// Spring MVC calls method loadPetWithVisit(...) before processNewVisitForm is
-	// called
 	@PostMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String processNewVisitForm(@ModelAttribute Owner owner, @PathVariable int petId, @Valid Visit visit,
-			BindingResult result, RedirectAttributes redirectAttributes) {
+	public String processNewVisitForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@Valid Visit visit, BindingResult result, Map<String, Object> model,
+			RedirectAttributes redirectAttributes) {
 		if (result.hasErrors()) {
+			loadPetWithOwner(ownerId, petId, model);
 			return "pets/createOrUpdateVisitForm";
 		}
 
-		owner.addVisit(petId, visit);
-		this.owners.save(owner);
+		if (!this.visits.existsPetForOwner(ownerId, petId)) {
+			throw new IllegalArgumentException("Pet ID " + petId + " not found for owner ID " + ownerId);
+		}
+		visit.setPetId(petId);
+		this.visits.save(visit);
 		redirectAttributes.addFlashAttribute("message", "Your visit has been booked");
 		return "redirect:/owners/{ownerId}";
 	}
 
+	/**
+	 * Return the page of a pet's visit history that follows the visit with the given date
+	 * and id, or the most recent visits if no visit is given.
+	 */
+	@GetMapping("/owners/{ownerId}/pets/{petId}/visits")
+	@ResponseBody
+	@QueryBudget(max = 2)
+	public VisitPage showVisitHistory(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate beforeDate,
+			@RequestParam(required = false) Integer beforeId) {
+		if (!this.visits.existsPetForOwner(ownerId, petId)) {
+			throw new IllegalArgumentException("Pet ID " + petId + " not found for owner ID " + ownerId);
+		}
+		if (beforeDate == null || beforeId == null) {
+			return this.visits.findLatestVisits(petId, VisitPage.SIZE);
+		}
+		return this.visits.findVisitsBefore(petId, beforeDate, beforeId, VisitPage.SIZE);
+	}
+
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+
+/**
+ * A page of a pet's visit history, newest first. The date and id of the last visit on the
+ * page are the keyset from which the next, older page is read.
+ *
+ * @param visits the visits on this page, ordered by date and id, newest first
+ * @param hasMore whether there are older visits than the ones on this page
+ */
+public record VisitPage(List<Visit> visits, boolean hasMore) {
+
+	/**
+	 * The number of visits shown per pet on the owner details page, and returned per
+	 * request when loading older visits.
+	 */
+	public static final int SIZE = 5;
+
+	/**
+	 * Create a page from visits read with a limit of one more than the page size: the
+	 * extra visit, if present, only signals that there are more.
+	 */
+	static VisitPage of(List<Visit> visits, int size) {
+		if (visits.size() > size) {
+			return new VisitPage(List.copyOf(visits.subList(0, size)), true);
+		}
+		return new VisitPage(List.copyOf(visits), false);
+	}
+
+}
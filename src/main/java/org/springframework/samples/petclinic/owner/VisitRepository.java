@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository class for <code>Visit</code> domain objects. Visits are written on their
+ * own, by pet id, so that booking a visit does not need to load and merge the whole
+ * {@link Owner} aggregate.
+ */
+public interface VisitRepository extends Repository<Visit, Integer> {
+
+	/**
+	 * Check whether the {@link Pet} with the given id belongs to the {@link Owner} with
+	 * the given id.
+	 * @param ownerId the id of the owner
+	 * @param petId the id of the pet
+	 * @return {@literal true} if the owner has a pet with the given id
+	 */
+	@Query("SELECT CASE WHEN COUNT(pet) > 0 THEN true ELSE false END "
+			+ "FROM Owner owner JOIN owner.pets pet WHERE owner.id = :ownerId AND pet.id = :petId")
+	@Transactional(readOnly = true)
+	boolean existsPetForOwner(@Param("ownerId") Integer ownerId, @Param("petId") Integer petId);
+
+	/**
+	 * Retrieve the most recent visits of a {@link Pet}.
+	 * @param petId the id of the pet
+	 * @param size the maximum number of visits to return
+	 * @return the newest page of the pet's visit history
+	 */
+	@Transactional(readOnly = true)
+	default VisitPage findLatestVisits(Integer petId, int size) {
+		return VisitPage.of(findLatestByPetId(petId, Limit.of(size + 1)), size);
+	}
+
+	/**
+	 * Retrieve the most recent visits of each of the given pets. The visits of all pets
+	 * are read in one query, which ranks each pet's visits by (date, id) and keeps the
+	 * newest of every pet, so the number of statements does not grow with the number of
+	 * pets.
+	 * @param petIds the ids of the pets
+	 * @param size the maximum number of visits to return per pet
+	 * @return the newest page of each pet's visit history, by pet id
+	 */
+	@Transactional(readOnly = true)
+	default Map<Integer, VisitPage> findLatestVisits(Collection<Integer> petIds, int size) {
+		if (petIds.isEmpty()) {
+			return Map.of();
+		}
+		Map<Integer, List<Visit>> visits = new HashMap<>();
+		for (Visit visit : findLatestByPetIdIn(petIds, size + 1)) {
+			visits.computeIfAbsent(visit.getPetId(), (petId) -> new ArrayList<>()).add(visit);
+		}
+		Map<Integer, VisitPage> pages = new HashMap<>();
+		for (Integer petId : petIds) {
+			pages.put(petId, VisitPage.of(visits.getOrDefault(petId, List.of()), size));
+		}
+		return pages;
+	}
+
+	/**
+	 * Retrieve the visits of a {@link Pet} that are older than the given visit, in the
+	 * order of (date, id). Seeking past the last visit of the previous page keeps every
+	 * page as cheap as the first one, however long the history is.
+	 * @param petId the id of the pet
+	 * @param date the date of the last visit already shown
+	 * @param id the id of the last visit already shown
+	 * @param size the maximum number of visits to return
+	 * @return the next page of the pet's visit history
+	 */
+	@Transactional(readOnly = true)
+	default VisitPage findVisitsBefore(Integer petId, LocalDate date, Integer id, int size) {
+		return VisitPage.of(findByPetIdBefore(petId, date, id, Limit.of(size + 1)), size);
+	}
+
+	/**
+	 * Retrieve all visits of a {@link Pet}, oldest first.
+	 * @param petId the id of the pet
+	 * @return the pet's visit history
+	 */
+	@Query("SELECT visit FROM Visit visit WHERE visit.petId = :petId ORDER BY visit.date, visit.id")
+	@Transactional(readOnly = true)
+	List<Visit> findByPetId(@Param("petId") Integer petId);
+
+	@Query("SELECT visit FROM Visit visit WHERE visit.petId = :petId ORDER BY visit.date DESC, visit.id DESC")
+	@Transactional(readOnly = true)
+	List<Visit> findLatestByPetId(@Param("petId") Integer petId, Limit limit);
+
+	@Query(value = "SELECT id, pet_id, visit_date, description FROM (SELECT visit.*, ROW_NUMBER() OVER "
+			+ "(PARTITION BY visit.pet_id ORDER BY visit.visit_date DESC, visit.id DESC) AS visit_rank "
+			+ "FROM visits visit WHERE visit.pet_id IN :petIds) ranked "
+			+ "WHERE visit_rank <= :limit ORDER BY pet_id, visit_date DESC, id DESC", nativeQuery = true)
+	@Transactional(readOnly = true)
+	List<Visit> findLatestByPetIdIn(@Param("petIds") Collection<Integer> petIds, @Param("limit") int limit);
+
+	@Query("SELECT visit FROM Visit visit WHERE visit.petId = :petId "
+			+ "AND (visit.date < :date OR (visit.date = :date AND visit.id < :id)) "
+			+ "ORDER BY visit.date DESC, visit.id DESC")
+	@Transactional(readOnly = true)
+	List<Visit> findByPetIdBefore(@Param("petId") Integer petId, @Param("date") LocalDate date, @Param("id") Integer id,
+			Limit limit);
+
+	/**
+	 * Save a {@link Visit} to the data store. The visit is attached to the pet given by
+	 * its {@link Visit#getPetId() pet id}.
+	 * @param visit the {@link Visit} to save
+	 */
+	void save(Visit visit);
+
+}
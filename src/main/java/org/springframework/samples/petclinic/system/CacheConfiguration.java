@@ -16,38 +16,150 @@
 
 package org.springframework.samples.petclinic.system;
 
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.jcache.JCacheCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
 
-import javax.cache.configuration.MutableConfiguration;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import javax.cache.CacheManager;
+import javax.cache.configuration.FactoryBuilder;
 
 /**
- * Cache configuration intended for caches providing the JCache API. This configuration
- * creates the used cache for the application and enables statistics that become
- * accessible via JMX.
+ * Cache configuration intended for caches providing the JCache API, backed by Caffeine.
+ * This configuration creates a cache for every region configured with
+ * {@code petclinic.cache.regions.<name>.*}, bounded and expired as described by
+ * {@link CacheRegionProperties}.
+ * <p>
+ * The same regions back the Hibernate second-level cache, so the regions of the cached
+ * entities, collections and queries are configured the same way.
+ * <p>
+ * The hit and miss counts, evictions and load times of each region are exported as
+ * Micrometer {@code cache.*} metrics tagged with the region name.
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
+@EnableConfigurationProperties(CacheRegionProperties.class)
 class CacheConfiguration {
 
+	/**
+	 * Create the configured regions. The JCache cache manager is shared by every
+	 * application context of the class loader, so regions that already exist are reused.
+	 */
+	@Bean
+	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer(CacheRegionProperties properties) {
+		return cm -> properties.getRegions().forEach((name, region) -> {
+			if (cm.getCache(name) == null) {
+				cm.createCache(name, cacheConfiguration(region));
+			}
+		});
+	}
+
+	/**
+	 * Enable the Hibernate second-level and query caches, keeping their regions in the
+	 * JCache cache manager of the application. Every region Hibernate uses must be
+	 * configured as a {@code petclinic.cache.regions.<name>}; a missing one fails the
+	 * start rather than creating an unbounded cache without metrics.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer petclinicSecondLevelCacheCustomizer(CacheManager cacheManager) {
+		return properties -> {
+			properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+			properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+			properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+			properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+			properties.put(ConfigSettings.MISSING_CACHE_STRATEGY,
+					MissingCacheStrategy.FAIL.getExternalRepresentation());
+		};
+	}
+
+	/**
+	 * Bind the metrics of each region to the statistics kept by the native Caffeine
+	 * cache, which, unlike the JCache statistics, include evictions and load times. Takes
+	 * precedence over the JCache binder that Spring Boot registers by default.
+	 */
 	@Bean
-	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
-		return cm -> cm.createCache("vets", cacheConfiguration());
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	public CacheMeterBinderProvider<JCacheCache> caffeineJCacheMeterBinderProvider() {
+		return (cache, tags) -> {
+			Cache<?, ?> nativeCache = cache.getNativeCache().unwrap(Cache.class);
+			return metrics(nativeCache, cache.getName(), tags);
+		};
+	}
+
+	private static <K, V> CaffeineCacheMetrics<K, V, Cache<K, V>> metrics(Cache<K, V> cache, String name,
+			Iterable<Tag> tags) {
+		return new CaffeineCacheMetrics<>(cache, name, tags);
 	}
 
 	/**
-	 * Create a simple configuration that enable statistics via the JCache programmatic
-	 * configuration API.
+	 * Create the Caffeine specific configuration of a region.
 	 * <p>
 	 * Within the configuration object that is provided by the JCache API standard, there
 	 * is only a very limited set of configuration options. The really relevant
-	 * configuration options (like the size limit) must be set via a configuration
-	 * mechanism that is provided by the selected JCache implementation.
+	 * configuration options (like the size limit) are set via the
+	 * {@link CaffeineConfiguration} of the Caffeine JCache provider. Entries are stored
+	 * by reference, as copying them on every read would cost more than loading them.
 	 */
-	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration() {
-		return new MutableConfiguration<>().setStatisticsEnabled(true);
+	private CaffeineConfiguration<Object, Object> cacheConfiguration(CacheRegionProperties.Region region) {
+		CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		configuration.setStoreByValue(false);
+		configuration.setStatisticsEnabled(true);
+		configuration.setNativeStatisticsEnabled(true);
+		if (region.getMaximumWeight() != null) {
+			configuration.setMaximumWeight(OptionalLong.of(region.getMaximumWeight()));
+			configuration.setWeigherFactory(Optional.of(FactoryBuilder.factoryOf(new ElementCountWeigher())));
+		}
+		configuration.setExpireAfterWrite(nanos(region.getExpireAfterWrite()));
+		configuration.setRefreshAfterWrite(nanos(region.getRefreshAfterWrite()));
+		return configuration;
+	}
+
+	private static OptionalLong nanos(Duration duration) {
+		return (duration != null) ? OptionalLong.of(duration.toNanos()) : OptionalLong.empty();
+	}
+
+	/**
+	 * Weighs collections and maps by their number of elements, and any other value as a
+	 * single element.
+	 */
+	static final class ElementCountWeigher implements Weigher<Object, Object>, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public int weigh(Object key, Object value) {
+			if (value instanceof Collection<?> collection) {
+				return Math.max(collection.size(), 1);
+			}
+			if (value instanceof Map<?, ?> map) {
+				return Math.max(map.size(), 1);
+			}
+			return 1;
+		}
+
 	}
 
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Per-region settings of the application caches, bound from
+ * {@code petclinic.cache.regions.<name>.*}. Every configured region is created as a cache
+ * when the application starts.
+ */
+@ConfigurationProperties("petclinic.cache")
+public class CacheRegionProperties {
+
+	private final Map<String, Region> regions = new LinkedHashMap<>();
+
+	public Map<String, Region> getRegions() {
+		return this.regions;
+	}
+
+	public static class Region {
+
+		/**
+		 * Maximum total weight of the entries in the region. An entry weighs as much as
+		 * the number of elements it holds, so a cached list of 20 vets weighs 20.
+		 * Unbounded if not set.
+		 */
+		private Long maximumWeight;
+
+		/**
+		 * Time after which an entry is removed once it has been written. Entries do not
+		 * expire if not set.
+		 */
+		private Duration expireAfterWrite;
+
+		/**
+		 * Time after which an entry is reloaded in the background once it has been
+		 * written. Only applies to regions that are read through a cache loader.
+		 */
+		private Duration refreshAfterWrite;
+
+		public Long getMaximumWeight() {
+			return this.maximumWeight;
+		}
+
+		public void setMaximumWeight(Long maximumWeight) {
+			this.maximumWeight = maximumWeight;
+		}
+
+		public Duration getExpireAfterWrite() {
+			return this.expireAfterWrite;
+		}
+
+		public void setExpireAfterWrite(Duration expireAfterWrite) {
+			this.expireAfterWrite = expireAfterWrite;
+		}
+
+		public Duration getRefreshAfterWrite() {
+			return this.refreshAfterWrite;
+		}
+
+		public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+			this.refreshAfterWrite = refreshAfterWrite;
+		}
+
+	}
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import javax.sql.DataSource;
+
+/**
+ * Instruments every lease of a JDBC connection from the application's {@link DataSource},
+ * from the moment it is asked for until it is closed and so returned to the pool. Each
+ * lease is published to three meters:
+ * <ul>
+ * <li>{@code petclinic.jdbc.connection.acquire}, the time spent waiting for the pool to
+ * hand out the connection;</li>
+ * <li>{@code petclinic.jdbc.connection.hold}, the time the connection was held;</li>
+ * <li>{@code petclinic.jdbc.connection.statements}, the number of statements prepared on
+ * the connection.</li>
+ * </ul>
+ * All of them are tagged with the MVC handler that used the connection, such as
+ * {@code OwnerController.showOwner}, or {@code none} outside of a request, and publish
+ * percentile histograms. A request that is slow because it waits for the pool shows up in
+ * the acquire timer; one that is slow in the database shows up in the hold timer and the
+ * statement count. With open-in-view turned off a connection is only held for the
+ * transactions of a request, not while its view is rendered.
+ * <p>
+ * The statements prepared while a request is handled are also written to its
+ * {@link StatementLog}, which {@link QueryBudgetInterceptor} checks.
+ */
+@Component
+class ConnectionLeaseMetrics implements BeanPostProcessor, MeterBinder {
+
+	static final String NO_HANDLER = "none";
+
+	private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+	private volatile MeterRegistry registry;
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+			return new InstrumentedDataSource(dataSource);
+		}
+		return bean;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Return the meters of the given handler, or {@literal null} until the meter registry
+	 * is bound.
+	 */
+	private Meters meters(String handler) {
+		MeterRegistry registry = this.registry;
+		if (registry == null) {
+			return null;
+		}
+		return this.meters.computeIfAbsent(handler, (tag) -> new Meters(registry, tag));
+	}
+
+	/**
+	 * Return the name of the MVC handler serving the current request, as the simple name
+	 * of its controller and the name of its method.
+	 */
+	static String currentHandler() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes != null && attributes.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+				RequestAttributes.SCOPE_REQUEST) instanceof HandlerMethod handler) {
+			return handlerName(handler);
+		}
+		return NO_HANDLER;
+	}
+
+	static String handlerName(HandlerMethod handler) {
+		return handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+	}
+
+	/**
+	 * {@link DataSource} that times how long getting a connection takes and measures each
+	 * connection it hands out until it is closed.
+	 */
+	private final class InstrumentedDataSource extends DelegatingDataSource {
+
+		InstrumentedDataSource(DataSource target) {
+			super(target);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return lease(super::getConnection);
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return lease(() -> super.getConnection(username, password));
+		}
+
+		private Connection lease(ConnectionSupplier supplier) throws SQLException {
+			String handler = currentHandler();
+			long start = System.nanoTime();
+			Connection connection = supplier.get();
+			long acquired = System.nanoTime();
+			Meters meters = meters(handler);
+			if (meters != null) {
+				meters.acquire.record(acquired - start, TimeUnit.NANOSECONDS);
+			}
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, new Lease(connection, handler, acquired));
+		}
+
+	}
+
+	/**
+	 * One use of a pooled connection, which ends when the connection is closed.
+	 */
+	private final class Lease implements InvocationHandler {
+
+		private final Connection target;
+
+		private final String handler;
+
+		private final long start;
+
+		private int statements;
+
+		private boolean closed;
+
+		Lease(Connection target, String handler, long start) {
+			this.target = target;
+			this.handler = handler;
+			this.start = start;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "createStatement":
+					this.statements++;
+					StatementLog.record(null);
+					break;
+				case "prepareStatement", "prepareCall":
+					this.statements++;
+					StatementLog.record((String) args[0]);
+					break;
+				case "close":
+					if (!this.closed) {
+						this.closed = true;
+						closed();
+					}
+					break;
+				default:
+					break;
+			}
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		private void closed() {
+			Meters meters = meters(this.handler);
+			if (meters != null) {
+				meters.hold.record(System.nanoTime() - this.start, TimeUnit.NANOSECONDS);
+				meters.statements.record(this.statements);
+			}
+		}
+
+	}
+
+	/**
+	 * The meters of one handler.
+	 */
+	private static final class Meters {
+
+		private final Timer acquire;
+
+		private final Timer hold;
+
+		private final DistributionSummary statements;
+
+		Meters(MeterRegistry registry, String handler) {
+			this.acquire = Timer.builder("petclinic.jdbc.connection.acquire")
+				.description("Time spent waiting for a JDBC connection from the pool")
+				.tag("handler", handler)
+				.publishPercentileHistogram()
+				.register(registry);
+			this.hold = Timer.builder("petclinic.jdbc.connection.hold")
+				.description("Time JDBC connections were held before being returned to the pool")
+				.tag("handler", handler)
+				.publishPercentileHistogram()
+				.register(registry);
+			this.statements = DistributionSummary.builder("petclinic.jdbc.connection.statements")
+				.description("Statements prepared on a JDBC connection while it was held")
+				.baseUnit("statements")
+				.tag("handler", handler)
+				.publishPercentileHistogram()
+				.register(registry);
+		}
+
+	}
+
+	@FunctionalInterface
+	private interface ConnectionSupplier {
+
+		Connection get() throws SQLException;
+
+	}
+
+}
@@ -0,0 +1,565 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Adds a synthetic dataset to the database, scaled by its number of owners, from a
+ * thousand to tens of millions. The same seed, reference date and number of owners always
+ * generate the same rows.
+ * <p>
+ * Last names follow the US census: about one owner in nine has one of the 50 most common
+ * names, in their census proportions, and the others share a long tail of some 46,000
+ * generated names with Zipf-like frequencies. An owner has 1.5 pets on average, mostly
+ * dogs and cats, and a pet about one visit a year over the ten years before the reference
+ * date, more of them in spring and summer and none on Sundays. There is one vet for every
+ * thousand owners, each with up to three specialties.
+ * <p>
+ * Rows are written over one connection with JDBC batches,
+ * {@value #OWNERS_PER_TRANSACTION} owners with their pets and visits per transaction;
+ * MySQL and PostgreSQL rewrite the batches into multi-row inserts with the options of
+ * their connection URLs, and their integrity checks and commit flushes are relaxed for
+ * the session. Ids continue after the highest id of each table and the id sequences are
+ * moved past them at the end, also when a run fails after committing part of its rows, so
+ * the generator must not run while an application writes to the same database.
+ */
+final class DataGenerator {
+
+	private static final Log logger = LogFactory.getLog(DataGenerator.class);
+
+	static final int BATCH_SIZE = 1000;
+
+	static final int OWNERS_PER_TRANSACTION = 10_000;
+
+	/**
+	 * The allocation size of the pooled id sequences.
+	 */
+	private static final int ALLOCATION_SIZE = 50;
+
+	private static final int HISTORY_YEARS = 10;
+
+	/**
+	 * The day that birth dates and visits are generated back from, unless another one is
+	 * given.
+	 */
+	static final LocalDate REFERENCE_DATE = LocalDate.of(2024, 1, 1);
+
+	private static final String[] COMMON_LAST_NAMES = { "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia",
+			"Miller", "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson",
+			"Thomas", "Taylor", "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez",
+			"Clark", "Ramirez", "Lewis", "Robinson", "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres",
+			"Nguyen", "Hill", "Flores", "Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell",
+			"Carter", "Roberts" };
+
+	/**
+	 * Census counts of the common last names, in thousands.
+	 */
+	private static final int[] COMMON_LAST_NAME_COUNTS = { 2443, 1933, 1625, 1437, 1425, 1166, 1161, 1116, 1095, 1060,
+			1043, 875, 841, 802, 784, 756, 751, 724, 708, 703, 693, 682, 665, 660, 624, 613, 563, 557, 532, 530, 523,
+			484, 483, 465, 459, 440, 438, 438, 435, 434, 430, 428, 425, 420, 407, 391, 386, 384, 377, 377 };
+
+	/**
+	 * Share of owners with a common last name, the 50 most common names being shared by
+	 * 11.5% of the US population.
+	 */
+	private static final double COMMON_LAST_NAME_SHARE = 0.115;
+
+	private static final String[] NAME_STARTS = { "Ab", "Bar", "Bel", "Cal", "Dun", "El", "Fair", "Gal", "Har", "Hol",
+			"Ken", "Lan", "Mar", "Mc", "Nor", "O'", "Pem", "Ray", "Stan", "Thorn", "Van", "Wal", "Whit", "Yar" };
+
+	private static final String[] NAME_MIDDLES = { "", "a", "ber", "ing", "den", "o", "ley", "ton", "ri", "wick" };
+
+	private static final String[] NAME_SYLLABLES = { "", "el", "an", "ov", "is", "er", "in", "ar", "os", "ul", "et",
+			"am" };
+
+	private static final String[] NAME_ENDS = { "ton", "ford", "son", "field", "man", "er", "well", "by", "ski", "ez",
+			"worth", "ham", "sen", "land", "ridge", "more" };
+
+	/**
+	 * Offset of the Zipf distribution of the generated last names, which keeps the most
+	 * frequent of them rarer than the common names.
+	 */
+	private static final int LAST_NAME_RANK_OFFSET = 1000;
+
+	private static final String[] FIRST_NAMES = { "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael",
+			"Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas",
+			"Sarah", "Charles", "Karen", "Christopher", "Lisa", "Daniel", "Nancy", "Matthew", "Betty", "Anthony",
+			"Sandra", "Mark", "Margaret", "Donald", "Ashley", "Steven", "Kimberly", "Andrew", "Emily", "Paul", "Donna",
+			"Joshua", "Michelle", "Kenneth", "Carol", "Kevin", "Amanda", "Brian", "Melissa", "George", "Deborah" };
+
+	private static final String[] STREETS = { "Main", "Oak", "Pine", "Maple", "Cedar", "Elm", "Lake", "Hill", "Park",
+			"Washington", "Lincoln", "Jefferson", "Cardinal", "Liberty", "Commerce", "Friendly", "Fair" };
+
+	private static final String[] STREET_SUFFIXES = { "St.", "Ave.", "Rd.", "Ln.", "Blvd.", "Way", "Dr." };
+
+	private static final String[] CITIES = { "Madison", "Sun Prairie", "Middleton", "Fitchburg", "Verona", "Waunakee",
+			"Stoughton", "McFarland", "Monona", "Oregon", "DeForest", "Windsor", "Cottage Grove", "Cambridge",
+			"Mount Horeb", "Mazomanie" };
+
+	private static final String[] PET_NAMES = { "Max", "Bella", "Charlie", "Luna", "Lucy", "Cooper", "Daisy", "Milo",
+			"Bailey", "Leo", "Rocky", "Coco", "Sadie", "Molly", "Buddy", "Stella", "Tucker", "Loki", "Oliver", "Nala",
+			"Basil", "Rosy", "Jewel", "Iggy", "George", "Samantha", "Lucky", "Mulligan", "Freddy", "Sly", "Pepper",
+			"Ginger", "Shadow", "Oreo", "Simba", "Zoe", "Bear", "Duke", "Penny", "Rex" };
+
+	/**
+	 * Weights of owners with no pet up to four pets.
+	 */
+	private static final int[] PET_COUNT_WEIGHTS = { 10, 50, 25, 10, 5 };
+
+	/**
+	 * Weights of vets with no specialty up to three specialties.
+	 */
+	private static final int[] SPECIALTY_COUNT_WEIGHTS = { 40, 35, 20, 5 };
+
+	private static final Map<String, Integer> PET_TYPE_WEIGHTS = Map.of("dog", 45, "cat", 35, "bird", 8, "hamster", 6,
+			"lizard", 3, "snake", 3);
+
+	private static final String[] VISIT_REASONS = { "annual checkup", "vaccination", "rabies shot", "dental cleaning",
+			"skin rash", "ear infection", "limping", "upset stomach", "neutered", "spayed", "follow-up", "nail trim" };
+
+	private static final int[] VISIT_REASON_WEIGHTS = { 25, 20, 10, 8, 6, 6, 5, 5, 4, 4, 5, 2 };
+
+	private static final String[] SPECIALTIES = { "radiology", "surgery", "dentistry", "anesthesia", "cardiology",
+			"dermatology", "emergency and critical care", "internal medicine", "neurology", "oncology", "ophthalmology",
+			"behavior", "nutrition", "pathology", "theriogenology", "zoological medicine",
+			"sports medicine and rehabilitation", "clinical pharmacology", "preventive medicine", "toxicology" };
+
+	private final DataSource dataSource;
+
+	private final long seed;
+
+	private final LocalDate referenceDate;
+
+	DataGenerator(DataSource dataSource, long seed) {
+		this(dataSource, seed, REFERENCE_DATE);
+	}
+
+	DataGenerator(DataSource dataSource, long seed, LocalDate referenceDate) {
+		this.dataSource = dataSource;
+		this.seed = seed;
+		this.referenceDate = referenceDate;
+	}
+
+	/**
+	 * Parse a number of owners, such as {@code 5000}, {@code 10k} or {@code 50M}.
+	 */
+	static int scale(String owners) {
+		String value = owners.trim();
+		int multiplier = 1;
+		if (value.endsWith("k") || value.endsWith("K")) {
+			multiplier = 1_000;
+		}
+		else if (value.endsWith("m") || value.endsWith("M")) {
+			multiplier = 1_000_000;
+		}
+		if (multiplier > 1) {
+			value = value.substring(0, value.length() - 1);
+		}
+		int scale = Math.multiplyExact(Integer.parseInt(value), multiplier);
+		if (scale < 1) {
+			throw new IllegalArgumentException("Number of owners must be positive: " + owners);
+		}
+		return scale;
+	}
+
+	/**
+	 * Generate the given number of owners, with their pets and visits, and the vets.
+	 */
+	Report generate(int owners) throws SQLException {
+		long start = System.nanoTime();
+		try (Connection connection = this.dataSource.getConnection()) {
+			DatabaseDriver driver = DatabaseDriver.fromJdbcUrl(connection.getMetaData().getURL());
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			bulkLoad(jdbcTemplate, driver, true);
+			Writer writer = null;
+			try {
+				SplittableRandom random = new SplittableRandom(this.seed);
+				writer = new Writer(jdbcTemplate, connection, random.split(), this.referenceDate, start);
+				writer.vets(Math.max(2, owners / 1000));
+				writer.owners(owners);
+				connection.commit();
+				return writer.report(System.nanoTime() - start);
+			}
+			catch (SQLException | RuntimeException ex) {
+				connection.rollback();
+				throw ex;
+			}
+			finally {
+				// the vets and each chunk of owners are committed on their own
+				if (writer != null) {
+					writer.restartSequences(driver);
+				}
+				bulkLoad(jdbcTemplate, driver, false);
+				connection.commit();
+				connection.setAutoCommit(autoCommit);
+			}
+		}
+	}
+
+	/**
+	 * Relax the integrity checks and durability of the session for the load, or restore
+	 * them.
+	 */
+	private static void bulkLoad(JdbcTemplate jdbcTemplate, DatabaseDriver driver, boolean enabled) {
+		switch (driver) {
+			case MYSQL, MARIADB -> {
+				jdbcTemplate.execute("SET unique_checks = " + (enabled ? 0 : 1));
+				jdbcTemplate.execute("SET foreign_key_checks = " + (enabled ? 0 : 1));
+			}
+			case POSTGRESQL ->
+				jdbcTemplate.execute(enabled ? "SET synchronous_commit = off" : "RESET synchronous_commit");
+			default -> {
+			}
+		}
+	}
+
+	/**
+	 * Pick an index with a probability in proportion to its weight.
+	 */
+	private static int weighted(int[] weights, int total, SplittableRandom random) {
+		int value = random.nextInt(total);
+		for (int i = 0;; i++) {
+			value -= weights[i];
+			if (value < 0) {
+				return i;
+			}
+		}
+	}
+
+	private static String pick(String[] values, SplittableRandom random) {
+		return values[random.nextInt(values.length)];
+	}
+
+	/**
+	 * The number of rows generated, and how long it took.
+	 *
+	 * @param owners the number of owners
+	 * @param pets the number of pets
+	 * @param visits the number of visits
+	 * @param vets the number of vets
+	 * @param specialties the number of specialties added, those missing from the
+	 * generated vets' specialties
+	 * @param elapsedMillis the time taken
+	 */
+	record Report(int owners, long pets, long visits, int vets, int specialties, long elapsedMillis) {
+
+		long rows() {
+			return this.owners + this.pets + this.visits + this.vets + this.specialties;
+		}
+
+		@Override
+		public String toString() {
+			double seconds = Math.max(this.elapsedMillis, 1) / 1000.0;
+			return "Generated " + this.owners + " owners, " + this.pets + " pets, " + this.visits + " visits, "
+					+ this.vets + " vets and " + this.specialties + " specialties in " + this.elapsedMillis + " ms ("
+					+ Math.round(rows() / seconds) + " rows/s, " + Math.round(this.owners / seconds) + " owners/s)";
+		}
+
+	}
+
+	/**
+	 * Generates and writes the rows of one run.
+	 */
+	private static final class Writer {
+
+		private final JdbcTemplate jdbcTemplate;
+
+		private final Connection connection;
+
+		private final SplittableRandom random;
+
+		private final long start;
+
+		private final LocalDate today;
+
+		private final LastNames lastNames;
+
+		private final Map<String, Integer> maxIds = new LinkedHashMap<>();
+
+		private int owners;
+
+		private long pets;
+
+		private long visits;
+
+		private int vets;
+
+		private int specialties;
+
+		Writer(JdbcTemplate jdbcTemplate, Connection connection, SplittableRandom random, LocalDate today, long start) {
+			this.jdbcTemplate = jdbcTemplate;
+			this.connection = connection;
+			this.today = today;
+			this.random = random;
+			this.start = start;
+			this.lastNames = new LastNames();
+			for (String table : List.of("specialties", "vets", "owners", "pets", "visits")) {
+				Integer maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+				this.maxIds.put(table, (maxId != null) ? maxId : 0);
+			}
+		}
+
+		void vets(int count) throws SQLException {
+			Map<String, Integer> specialtyIds = new LinkedHashMap<>();
+			RowCallbackHandler specialty = (rs) -> specialtyIds.put(rs.getString(2).toLowerCase(Locale.ROOT),
+					rs.getInt(1));
+			this.jdbcTemplate.query("SELECT id, name FROM specialties ORDER BY id", specialty);
+			List<Object[]> newSpecialties = new ArrayList<>();
+			for (String name : SPECIALTIES) {
+				if (!specialtyIds.containsKey(name)) {
+					int id = nextId("specialties");
+					specialtyIds.put(name, id);
+					newSpecialties.add(new Object[] { id, name });
+				}
+			}
+			insert("INSERT INTO specialties (id, name) VALUES (?, ?)", newSpecialties);
+			this.specialties = newSpecialties.size();
+
+			// Earlier specialties are more common
+			int[] ids = specialtyIds.values().stream().mapToInt(Integer::intValue).toArray();
+			int[] weights = new int[ids.length];
+			int total = 0;
+			for (int i = 0; i < ids.length; i++) {
+				weights[i] = ids.length - i;
+				total += weights[i];
+			}
+			List<Object[]> vetRows = new ArrayList<>();
+			List<Object[]> vetSpecialtyRows = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				int id = nextId("vets");
+				vetRows.add(new Object[] { id, pick(FIRST_NAMES, this.random), this.lastNames.next(this.random) });
+				int specialtyCount = weighted(SPECIALTY_COUNT_WEIGHTS, 100, this.random);
+				Set<Integer> vetSpecialties = new HashSet<>();
+				while (vetSpecialties.size() < Math.min(specialtyCount, ids.length)) {
+					int specialtyId = ids[weighted(weights, total, this.random)];
+					if (vetSpecialties.add(specialtyId)) {
+						vetSpecialtyRows.add(new Object[] { id, specialtyId });
+					}
+				}
+			}
+			insert("INSERT INTO vets (id, first_name, last_name) VALUES (?, ?, ?)", vetRows);
+			insert("INSERT INTO vet_specialties (vet_id, specialty_id) VALUES (?, ?)", vetSpecialtyRows);
+			this.connection.commit();
+			this.vets = count;
+		}
+
+		void owners(int count) throws SQLException {
+			Map<Integer, Integer> typeWeights = new LinkedHashMap<>();
+			this.jdbcTemplate.query("SELECT id, name FROM types ORDER BY id", (RowCallbackHandler) (rs) -> typeWeights
+				.put(rs.getInt(1), PET_TYPE_WEIGHTS.getOrDefault(rs.getString(2), 1)));
+			if (typeWeights.isEmpty()) {
+				throw new IllegalStateException("No pet types to generate pets of");
+			}
+			int[] typeIds = typeWeights.keySet().stream().mapToInt(Integer::intValue).toArray();
+			int[] weights = typeWeights.values().stream().mapToInt(Integer::intValue).toArray();
+			int totalWeight = typeWeights.values().stream().mapToInt(Integer::intValue).sum();
+			int reasonWeight = 0;
+			for (int weight : VISIT_REASON_WEIGHTS) {
+				reasonWeight += weight;
+			}
+
+			int nextProgress = 1;
+			while (this.owners < count) {
+				int chunk = Math.min(OWNERS_PER_TRANSACTION, count - this.owners);
+				List<Object[]> ownerRows = new ArrayList<>(chunk);
+				List<Object[]> petRows = new ArrayList<>();
+				List<Object[]> visitRows = new ArrayList<>();
+				for (int i = 0; i < chunk; i++) {
+					int ownerId = nextId("owners");
+					ownerRows.add(new Object[] { ownerId, pick(FIRST_NAMES, this.random),
+							this.lastNames.next(this.random), address(), pick(CITIES, this.random), telephone() });
+					int petCount = weighted(PET_COUNT_WEIGHTS, 100, this.random);
+					Set<String> names = new HashSet<>();
+					while (names.size() < petCount) {
+						String name = pick(PET_NAMES, this.random);
+						if (!names.add(name)) {
+							continue;
+						}
+						int petId = nextId("pets");
+						LocalDate birthDate = birthDate();
+						petRows.add(new Object[] { petId, name, birthDate,
+								typeIds[weighted(weights, totalWeight, this.random)], ownerId });
+						for (LocalDate date : visitDates(birthDate)) {
+							visitRows.add(new Object[] { nextId("visits"), petId, date,
+									VISIT_REASONS[weighted(VISIT_REASON_WEIGHTS, reasonWeight, this.random)] });
+						}
+					}
+				}
+				insert("INSERT INTO owners (id, first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?, ?)",
+						ownerRows);
+				insert("INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)", petRows);
+				insert("INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)", visitRows);
+				this.connection.commit();
+				this.owners += chunk;
+				this.pets += petRows.size();
+				this.visits += visitRows.size();
+				if (this.owners * 10L >= (long) count * nextProgress && this.owners < count) {
+					nextProgress = (int) (this.owners * 10L / count) + 1;
+					if (logger.isInfoEnabled()) {
+						logger.info(report(System.nanoTime() - this.start) + ", " + (this.owners * 100L / count)
+								+ "% of the owners");
+					}
+				}
+			}
+		}
+
+		/**
+		 * Move each id sequence past the highest id generated so far, so that the pooled
+		 * block that the application takes next starts after it.
+		 */
+		void restartSequences(DatabaseDriver driver) {
+			this.maxIds.forEach((table, maxId) -> {
+				long next = maxId + ALLOCATION_SIZE + 1;
+				if (driver == DatabaseDriver.MYSQL || driver == DatabaseDriver.MARIADB) {
+					this.jdbcTemplate.update("UPDATE " + table + "_seq SET next_val = ?", next);
+				}
+				else {
+					this.jdbcTemplate.execute("ALTER SEQUENCE " + table + "_seq RESTART WITH " + next);
+				}
+			});
+		}
+
+		Report report(long elapsedNanos) {
+			return new Report(this.owners, this.pets, this.visits, this.vets, this.specialties,
+					TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+		}
+
+		private int nextId(String table) {
+			return this.maxIds.merge(table, 1, Integer::sum);
+		}
+
+		private void insert(String sql, List<Object[]> rows) {
+			if (!rows.isEmpty()) {
+				this.jdbcTemplate.batchUpdate(sql, rows, BATCH_SIZE, (ps, row) -> {
+					for (int i = 0; i < row.length; i++) {
+						ps.setObject(i + 1, row[i]);
+					}
+				});
+			}
+		}
+
+		private String address() {
+			return (this.random.nextInt(9900) + 100) + " " + pick(STREETS, this.random) + " "
+					+ pick(STREET_SUFFIXES, this.random);
+		}
+
+		private String telephone() {
+			return "608" + (this.random.nextInt(8_000_000) + 2_000_000);
+		}
+
+		/**
+		 * A birth date up to 18 years ago, younger pets being more common.
+		 */
+		private LocalDate birthDate() {
+			double years = Math.min(-Math.log(1 - this.random.nextDouble()) * 5, 18);
+			return this.today.minusDays((long) (years * 365));
+		}
+
+		/**
+		 * About one visit a year since the pet was born, over the last ten years at most,
+		 * more of them around May than around November, on any day but Sunday.
+		 */
+		private List<LocalDate> visitDates(LocalDate birthDate) {
+			LocalDate earliest = birthDate.isAfter(this.today.minusYears(HISTORY_YEARS)) ? birthDate
+					: this.today.minusYears(HISTORY_YEARS);
+			long days = this.today.toEpochDay() - earliest.toEpochDay();
+			int count = poisson(days / 365.0);
+			List<LocalDate> dates = new ArrayList<>(count);
+			while (dates.size() < count) {
+				LocalDate date = earliest.plusDays(this.random.nextLong(days + 1));
+				double season = Math.cos(2 * Math.PI * (date.getDayOfYear() - 135) / 365.0);
+				if (date.getDayOfWeek() != DayOfWeek.SUNDAY && this.random.nextDouble() * 1.3 <= 1 + 0.3 * season) {
+					dates.add(date);
+				}
+			}
+			return dates;
+		}
+
+		private int poisson(double mean) {
+			double limit = Math.exp(-mean);
+			double product = this.random.nextDouble();
+			int count = 0;
+			while (product > limit) {
+				product *= this.random.nextDouble();
+				count++;
+			}
+			return count;
+		}
+
+	}
+
+	/**
+	 * Last names in census proportions, or from a long tail of generated names.
+	 */
+	private static final class LastNames {
+
+		private final int commonTotal;
+
+		private final int tailSize = NAME_STARTS.length * NAME_MIDDLES.length * NAME_SYLLABLES.length
+				* NAME_ENDS.length;
+
+		LastNames() {
+			int total = 0;
+			for (int count : COMMON_LAST_NAME_COUNTS) {
+				total += count;
+			}
+			this.commonTotal = total;
+		}
+
+		String next(SplittableRandom random) {
+			if (random.nextDouble() < COMMON_LAST_NAME_SHARE) {
+				return COMMON_LAST_NAMES[weighted(COMMON_LAST_NAME_COUNTS, this.commonTotal, random)];
+			}
+			// The frequency of the name of rank r is in proportion to 1 / (r + offset)
+			double offset = LAST_NAME_RANK_OFFSET;
+			int rank = (int) (offset * Math.pow((this.tailSize + offset) / offset, random.nextDouble()) - offset);
+			rank = Math.min(rank, this.tailSize - 1);
+			int start = rank % NAME_STARTS.length;
+			rank /= NAME_STARTS.length;
+			int middle = rank % NAME_MIDDLES.length;
+			rank /= NAME_MIDDLES.length;
+			int syllable = rank % NAME_SYLLABLES.length;
+			return NAME_STARTS[start] + NAME_MIDDLES[middle] + NAME_SYLLABLES[syllable]
+					+ NAME_ENDS[rank / NAME_SYLLABLES.length];
+		}
+
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.LocalDate;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Generates the number of owners given by {@code petclinic.generate.owners}, such as
+ * {@code 10k} or {@code 50M}, with a {@link DataGenerator} on startup, before the owner
+ * search indexes are built. Dates are generated back from
+ * {@code petclinic.generate.reference-date}, so that a run can be repeated on another
+ * day. To fill a database without starting the web server, run for example:
+ *
+ * <pre class="code">
+ * java -jar petclinic.jar --spring.profiles.active=postgres --petclinic.generate.owners=1M --spring.main.web-application-type=none
+ * </pre>
+ */
+@Component
+@ConditionalOnProperty("petclinic.generate.owners")
+class DataGeneratorRunner implements ApplicationRunner {
+
+	private static final Log logger = LogFactory.getLog(DataGeneratorRunner.class);
+
+	private final DataGenerator generator;
+
+	private final int owners;
+
+	DataGeneratorRunner(DataSource dataSource, @Value("${petclinic.generate.owners}") String owners,
+			@Value("${petclinic.generate.seed:42}") long seed,
+			@Value("${petclinic.generate.reference-date:2024-01-01}") String referenceDate) {
+		this.generator = new DataGenerator(dataSource, seed, LocalDate.parse(referenceDate));
+		this.owners = DataGenerator.scale(owners);
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		DataGenerator.Report report = this.generator.generate(this.owners);
+		logger.info(report);
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Actuator endpoint, {@code /actuator/queries}, listing the JPQL queries that took the
+ * most time in total since the application started, from the Hibernate statistics. The
+ * number of queries listed is {@code petclinic.queries.top}, unless a {@code limit} is
+ * given.
+ */
+@Component
+@Endpoint(id = "queries")
+class QueriesEndpoint {
+
+	private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+	private final int top;
+
+	QueriesEndpoint(ObjectProvider<EntityManagerFactory> entityManagerFactory,
+			@Value("${petclinic.queries.top:10}") int top) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.top = top;
+	}
+
+	@ReadOperation
+	public TopQueries queries(@Nullable Integer limit) {
+		EntityManagerFactory entityManagerFactory = this.entityManagerFactory.getIfAvailable();
+		if (entityManagerFactory == null) {
+			return new TopQueries(false, List.of());
+		}
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		List<QueryTotals> queries = new ArrayList<>();
+		for (String query : statistics.getQueries()) {
+			QueryStatistics totals = statistics.getQueryStatistics(query);
+			queries.add(new QueryTotals(query, totals.getExecutionCount(), totals.getExecutionRowCount(),
+					totals.getExecutionTotalTime(), totals.getExecutionAvgTime(), totals.getExecutionMaxTime()));
+		}
+		queries.sort(QueryTotals.SLOWEST_FIRST);
+		int size = Math.min(queries.size(), (limit != null) ? Math.max(limit, 0) : this.top);
+		return new TopQueries(statistics.isStatisticsEnabled(), List.copyOf(queries.subList(0, size)));
+	}
+
+	/**
+	 * The queries that took the most time in total.
+	 *
+	 * @param statisticsEnabled whether Hibernate collects statistics, without which no
+	 * queries are listed
+	 * @param queries the queries, by total time, longest first
+	 */
+	public record TopQueries(boolean statisticsEnabled, List<QueryTotals> queries) {
+
+	}
+
+	/**
+	 * The execution totals of one query.
+	 *
+	 * @param query the JPQL query
+	 * @param executions the number of times the query was executed
+	 * @param rows the number of rows returned by all executions
+	 * @param totalMillis the total execution time in milliseconds
+	 * @param averageMillis the average execution time in milliseconds
+	 * @param maxMillis the longest execution time in milliseconds
+	 */
+	public record QueryTotals(String query, long executions, long rows, long totalMillis, long averageMillis,
+			long maxMillis) {
+
+		static final Comparator<QueryTotals> SLOWEST_FIRST = Comparator.comparingLong(QueryTotals::totalMillis)
+			.thenComparingLong(QueryTotals::executions)
+			.reversed();
+
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Counts the SQL statements of every request handler in a {@link StatementLog} and
+ * reports them when the request completes.
+ * <p>
+ * A handler that executes more statements than its {@link QueryBudget} allows is logged
+ * and counted by the {@code petclinic.query.budget.exceeded} counter. With
+ * {@code petclinic.query-budget.enforce}, as in the tests, the first statement over the
+ * budget also fails, so the handler fails before any response is written. A statement
+ * that is executed {@code petclinic.query-budget.repeat-threshold} times or more within
+ * one request, typically once per element of a list that was loaded before, is logged as
+ * a possible N+1 select and counted by the {@code petclinic.query.repeated} counter. Both
+ * counters are tagged with the handler.
+ */
+@Component
+class QueryBudgetInterceptor implements HandlerInterceptor, WebMvcConfigurer {
+
+	private static final Log logger = LogFactory.getLog(QueryBudgetInterceptor.class);
+
+	private final boolean enforce;
+
+	private final int repeatThreshold;
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	QueryBudgetInterceptor(@Value("${petclinic.query-budget.enforce:false}") boolean enforce,
+			@Value("${petclinic.query-budget.repeat-threshold:3}") int repeatThreshold,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		this.enforce = enforce;
+		this.repeatThreshold = repeatThreshold;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(this);
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod method) {
+			QueryBudget budget = method.getMethodAnnotation(QueryBudget.class);
+			if (this.enforce && budget != null) {
+				StatementLog.start(ConnectionLeaseMetrics.handlerName(method), budget.max());
+			}
+			else {
+				StatementLog.start();
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		StatementLog log = StatementLog.stop();
+		if (log == null || !(handler instanceof HandlerMethod method)) {
+			return;
+		}
+		String handlerName = ConnectionLeaseMetrics.handlerName(method);
+		QueryBudget budget = method.getMethodAnnotation(QueryBudget.class);
+		if (budget != null && log.total() > budget.max()) {
+			if (logger.isWarnEnabled()) {
+				logger.warn(overBudget(method, log, budget));
+			}
+			increment("petclinic.query.budget.exceeded", "Requests that executed more statements than their budget",
+					handlerName);
+		}
+		for (Map.Entry<String, Integer> repeated : log.repeated(this.repeatThreshold).entrySet()) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Possible N+1 select in " + handlerName + ", executed " + repeated.getValue() + " times: "
+						+ repeated.getKey());
+			}
+			increment("petclinic.query.repeated", "Statements executed repeatedly within one request", handlerName);
+		}
+	}
+
+	private void increment(String name, String description, String handler) {
+		this.meterRegistry.ifAvailable((registry) -> Counter.builder(name)
+			.description(description)
+			.tag("handler", handler)
+			.register(registry)
+			.increment());
+	}
+
+	private static String overBudget(HandlerMethod method, StatementLog log, QueryBudget budget) {
+		return ConnectionLeaseMetrics.handlerName(method) + " executed " + log.total()
+				+ " statements, over its budget of " + budget.max();
+	}
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Times every JPQL query that Hibernate executes, keyed by the repository method that ran
+ * it, and logs the queries that are slower than {@code petclinic.queries.slow-threshold}.
+ * <p>
+ * The execution times that Hibernate reports to its statistics are published as the
+ * {@code petclinic.jpa.query} timer, tagged with the Spring Data repository
+ * {@code method}, such as {@code OwnerRepository.findById}, so there are never more
+ * timers than repository methods. Queries run outside a repository are timed with the
+ * {@code method} tag {@value #OTHER_QUERIES}. Hibernate measures the times in
+ * milliseconds. A slow query is logged with its query string, the MVC handler that ran it
+ * and the shapes of the arguments of the repository method that bound its parameters,
+ * such as {@code String(5)} or {@code List[100]}, but not their values. The totals of
+ * each query string are kept by Hibernate and ranked by {@link QueriesEndpoint}; the
+ * other Hibernate statistics are exported as the {@code hibernate.*} metrics.
+ */
+@Component
+class QueryMetrics implements HibernatePropertiesCustomizer, BeanPostProcessor, MeterBinder {
+
+	private static final Log logger = LogFactory.getLog(QueryMetrics.class);
+
+	/**
+	 * The repository method being invoked on this thread, if any.
+	 */
+	private static final ThreadLocal<RepositoryCall> currentCall = new ThreadLocal<>();
+
+	private static final String OTHER_QUERIES = "other";
+
+	private static final Method QUERY_EXECUTED;
+
+	static {
+		try {
+			QUERY_EXECUTED = StatisticsImplementor.class.getMethod("queryExecuted", String.class, int.class,
+					long.class);
+		}
+		catch (NoSuchMethodException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private final long slowThresholdMillis;
+
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	private volatile MeterRegistry registry;
+
+	QueryMetrics(@Value("${petclinic.queries.slow-threshold:200ms}") Duration slowThreshold) {
+		this.slowThresholdMillis = slowThreshold.toMillis();
+	}
+
+	@Override
+	public void customize(Map<String, Object> hibernateProperties) {
+		hibernateProperties.put(AvailableSettings.STATS_BUILDER, (StatisticsFactory) this::statistics);
+	}
+
+	/**
+	 * Create Hibernate's own statistics, behind a proxy that also passes every query
+	 * execution on to the timers and the slow query log. Only the
+	 * {@link StatisticsImplementor} contract is relied on, not the internals of its
+	 * implementation.
+	 */
+	private StatisticsImplementor statistics(SessionFactoryImplementor sessionFactory) {
+		StatisticsImplementor statistics = new StatisticsImpl(sessionFactory);
+		return (StatisticsImplementor) Proxy.newProxyInstance(StatisticsImplementor.class.getClassLoader(),
+				new Class<?>[] { StatisticsImplementor.class }, (proxy, method, args) -> {
+					Object result;
+					try {
+						result = method.invoke(statistics, args);
+					}
+					catch (InvocationTargetException ex) {
+						throw ex.getTargetException();
+					}
+					if (method.equals(QUERY_EXECUTED) && args[0] != null) {
+						executed((String) args[0], (int) args[1], (long) args[2]);
+					}
+					return result;
+				});
+	}
+
+	/**
+	 * Track the calls of every Spring Data repository, so that a slow query can be
+	 * reported with the arguments it was run with.
+	 */
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName) {
+		if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactory) {
+			Class<?> repositoryInterface = repositoryFactory.getObjectType();
+			MethodInterceptor interceptor = (invocation) -> trackCall(repositoryInterface, invocation);
+			repositoryFactory.addRepositoryFactoryCustomizer((factory) -> factory
+				.addRepositoryProxyPostProcessor((proxyFactory, repository) -> proxyFactory.addAdvice(interceptor)));
+		}
+		return bean;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	private static Object trackCall(Class<?> repository, MethodInvocation invocation) throws Throwable {
+		RepositoryCall previous = currentCall.get();
+		currentCall.set(new RepositoryCall(repository, invocation));
+		try {
+			return invocation.proceed();
+		}
+		finally {
+			if (previous != null) {
+				currentCall.set(previous);
+			}
+			else {
+				currentCall.remove();
+			}
+		}
+	}
+
+	private void executed(String query, int rows, long millis) {
+		RepositoryCall call = currentCall.get();
+		MeterRegistry registry = this.registry;
+		if (registry != null) {
+			String key = (call != null) ? call.method() : OTHER_QUERIES;
+			this.timers
+				.computeIfAbsent(key,
+						(tag) -> Timer.builder("petclinic.jpa.query")
+							.description("Execution time of JPQL queries")
+							.tag("method", tag)
+							.register(registry))
+				.record(millis, TimeUnit.MILLISECONDS);
+		}
+		if (millis >= this.slowThresholdMillis && logger.isWarnEnabled()) {
+			logger.warn("Slow query took " + millis + " ms for " + rows + " rows in "
+					+ ConnectionLeaseMetrics.currentHandler() + ": " + query
+					+ ((call != null) ? " with arguments " + call : ""));
+		}
+	}
+
+	/**
+	 * Describe an argument by its type and size, without its value.
+	 */
+	static String shape(Object argument) {
+		if (argument == null) {
+			return "null";
+		}
+		if (argument instanceof CharSequence text) {
+			return argument.getClass().getSimpleName() + "(" + text.length() + ")";
+		}
+		if (argument instanceof Collection<?> collection) {
+			return argument.getClass().getSimpleName() + "[" + collection.size() + "]";
+		}
+		if (argument.getClass().isArray()) {
+			return argument.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(argument) + "]";
+		}
+		if (argument instanceof Pageable pageable && pageable.isPaged()) {
+			return "Pageable(page " + pageable.getPageNumber() + ", size " + pageable.getPageSize() + ")";
+		}
+		if (argument instanceof Limit limit && limit.isLimited()) {
+			return "Limit(" + limit.max() + ")";
+		}
+		return argument.getClass().getSimpleName();
+	}
+
+	/**
+	 * The repository method being invoked and the shapes of its arguments.
+	 */
+	private record RepositoryCall(Class<?> repository, MethodInvocation invocation) {
+
+		String method() {
+			return this.repository.getSimpleName() + "." + this.invocation.getMethod().getName();
+		}
+
+		@Override
+		public String toString() {
+			StringJoiner shapes = new StringJoiner(", ", "(", ")");
+			for (Object argument : this.invocation.getArguments()) {
+				shapes.add(shape(argument));
+			}
+			return method() + shapes;
+		}
+
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The SQL statements prepared on the current thread while a request is handled, counted
+ * by their SQL. Logging is started and stopped around each request by
+ * {@link QueryBudgetInterceptor}; statements prepared outside of a log are not recorded.
+ * A log with a limit rejects the first statement over it, before it is prepared.
+ */
+final class StatementLog {
+
+	static final int UNLIMITED = -1;
+
+	private static final ThreadLocal<StatementLog> current = new ThreadLocal<>();
+
+	private final Map<String, Integer> counts = new HashMap<>();
+
+	private final String handler;
+
+	private final int limit;
+
+	private int total;
+
+	private StatementLog(String handler, int limit) {
+		this.handler = handler;
+		this.limit = limit;
+	}
+
+	/**
+	 * Start a new log for the current thread.
+	 * @return the log
+	 */
+	static StatementLog start() {
+		return start(null, UNLIMITED);
+	}
+
+	/**
+	 * Start a new log for the current thread that rejects the statements over the given
+	 * limit.
+	 * @param handler the name of the handler, to report a rejected statement
+	 * @param limit the maximum number of statements, or {@value #UNLIMITED}
+	 * @return the log
+	 */
+	static StatementLog start(String handler, int limit) {
+		StatementLog log = new StatementLog(handler, limit);
+		current.set(log);
+		return log;
+	}
+
+	/**
+	 * Return the log of the current thread.
+	 * @return the log, or {@literal null} if none was started
+	 */
+	static StatementLog current() {
+		return current.get();
+	}
+
+	/**
+	 * Stop logging on the current thread.
+	 * @return the log that was stopped, or {@literal null} if none was started
+	 */
+	static StatementLog stop() {
+		StatementLog log = current.get();
+		current.remove();
+		return log;
+	}
+
+	/**
+	 * Record a statement in the log of the current thread, if any.
+	 * @param sql the SQL of the statement, or {@literal null} if it is not known yet
+	 * @throws IllegalStateException if the statement is over the limit of the log
+	 */
+	static void record(String sql) {
+		StatementLog log = current.get();
+		if (log != null) {
+			log.total++;
+			if (sql != null) {
+				log.counts.merge(sql, 1, Integer::sum);
+			}
+			if (log.limit != UNLIMITED && log.total > log.limit) {
+				throw new IllegalStateException(
+						log.handler + " executed " + log.total + " statements, over its budget of " + log.limit);
+			}
+		}
+	}
+
+	/**
+	 * Return the number of statements recorded.
+	 * @return the number of statements
+	 */
+	int total() {
+		return this.total;
+	}
+
+	/**
+	 * Return the statements that were recorded at least the given number of times, with
+	 * their number of executions.
+	 * @param threshold the minimum number of times
+	 * @return the repeated statements, most repeated first
+	 */
+	Map<String, Integer> repeated(int threshold) {
+		Map<String, Integer> repeated = new LinkedHashMap<>();
+		this.counts.entrySet()
+			.stream()
+			.filter((entry) -> entry.getValue() >= threshold)
+			.sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+			.forEach((entry) -> repeated.put(entry.getKey(), entry.getValue()));
+		return repeated;
+	}
+
+}
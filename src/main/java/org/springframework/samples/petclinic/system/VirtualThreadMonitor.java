@@ -0,0 +1,213 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnJava;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Watches the virtual threads that serve requests when
+ * {@code spring.threads.virtual.enabled} is set on Java 21 or later. The build targets
+ * Java 17, where the setting is ignored and no monitor is created.
+ * <p>
+ * A virtual thread that blocks inside a {@code synchronized} block, as JDBC drivers and
+ * connection pools commonly do, stays pinned to its carrier thread. Pinning longer than
+ * {@code petclinic.threads.pinned-threshold} is read from the JFR
+ * {@code jdk.VirtualThreadPinned} event and published as the
+ * {@code jvm.threads.virtual.pinned} timer, tagged with the class of the innermost frame
+ * outside the JDK. The first pinning of each class is logged with its stack. The
+ * {@code jvm.threads.virtual.carriers} gauge counts the carrier threads, which only grow
+ * beyond {@code jvm.threads.virtual.parallelism} to compensate for pinned threads.
+ */
+@Component
+@ConditionalOnJava(JavaVersion.TWENTY_ONE)
+@ConditionalOnThreading(Threading.VIRTUAL)
+class VirtualThreadMonitor implements MeterBinder, SmartLifecycle {
+
+	private static final Log logger = LogFactory.getLog(VirtualThreadMonitor.class);
+
+	private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+	private static final String SUBMIT_FAILED_EVENT = "jdk.VirtualThreadSubmitFailed";
+
+	private static final String CARRIER_THREAD_CLASS = "jdk.internal.misc.CarrierThread";
+
+	private final Duration pinnedThreshold;
+
+	private final Set<String> loggedFrames = ConcurrentHashMap.newKeySet();
+
+	private volatile MeterRegistry registry;
+
+	private volatile RecordingStream stream;
+
+	VirtualThreadMonitor(@Value("${petclinic.threads.pinned-threshold:20ms}") Duration pinnedThreshold) {
+		this.pinnedThreshold = pinnedThreshold;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.registry = registry;
+		Gauge.builder("jvm.threads.virtual.carriers", VirtualThreadMonitor::countCarrierThreads)
+			.description("The number of carrier threads running virtual threads")
+			.register(registry);
+		Gauge
+			.builder("jvm.threads.virtual.parallelism",
+					() -> Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+							Runtime.getRuntime().availableProcessors()))
+			.description("The number of carrier threads the virtual thread scheduler aims for")
+			.register(registry);
+	}
+
+	@Override
+	public void start() {
+		RecordingStream stream = new RecordingStream();
+		stream.enable(PINNED_EVENT).withThreshold(this.pinnedThreshold).withStackTrace();
+		stream.enable(SUBMIT_FAILED_EVENT);
+		stream.onEvent(PINNED_EVENT, this::pinned);
+		stream.onEvent(SUBMIT_FAILED_EVENT, (event) -> submitFailed());
+		stream.startAsync();
+		this.stream = stream;
+	}
+
+	@Override
+	public void stop() {
+		RecordingStream stream = this.stream;
+		if (stream != null) {
+			stream.close();
+			this.stream = null;
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.stream != null;
+	}
+
+	private void pinned(RecordedEvent event) {
+		pinned(stackTrace(event.getStackTrace()), event.getDuration());
+	}
+
+	/**
+	 * Record a virtual thread pinned for the given duration, with the stack of the
+	 * {@code jdk.VirtualThreadPinned} event, innermost frame first.
+	 */
+	void pinned(List<StackTraceElement> stackTrace, Duration duration) {
+		String frame = applicationFrame(stackTrace);
+		MeterRegistry registry = this.registry;
+		if (registry != null) {
+			Timer.builder("jvm.threads.virtual.pinned")
+				.description("Time virtual threads were pinned to their carrier while blocked")
+				.tag("class", frame)
+				.register(registry)
+				.record(duration);
+		}
+		if (this.loggedFrames.add(frame) && logger.isWarnEnabled()) {
+			logger.warn("Virtual thread pinned for " + duration.toMillis() + " ms in " + frame + describe(stackTrace));
+		}
+	}
+
+	void submitFailed() {
+		MeterRegistry registry = this.registry;
+		if (registry != null) {
+			Counter.builder("jvm.threads.virtual.submit.failed")
+				.description("Virtual threads that could not be started or unparked")
+				.register(registry)
+				.increment();
+		}
+	}
+
+	/**
+	 * Return the class of the innermost frame outside the JDK, which is where the monitor
+	 * that pins the thread is held.
+	 */
+	private static String applicationFrame(List<StackTraceElement> stackTrace) {
+		for (StackTraceElement element : stackTrace) {
+			String type = element.getClassName();
+			if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+				return type;
+			}
+		}
+		return "unknown";
+	}
+
+	private static List<StackTraceElement> stackTrace(RecordedStackTrace stackTrace) {
+		List<StackTraceElement> elements = new ArrayList<>();
+		if (stackTrace != null) {
+			for (RecordedFrame frame : stackTrace.getFrames()) {
+				elements.add(new StackTraceElement(frame.getMethod().getType().getName(), frame.getMethod().getName(),
+						null, frame.getLineNumber()));
+			}
+		}
+		return elements;
+	}
+
+	private static String describe(List<StackTraceElement> stackTrace) {
+		StringBuilder builder = new StringBuilder();
+		for (StackTraceElement element : stackTrace) {
+			builder.append("\n\tat ")
+				.append(element.getClassName())
+				.append('.')
+				.append(element.getMethodName())
+				.append(':')
+				.append(element.getLineNumber());
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Count the carrier threads. They are platform threads, so unlike virtual threads
+	 * they are listed by their thread group.
+	 */
+	static int countCarrierThreads() {
+		ThreadGroup root = Thread.currentThread().getThreadGroup();
+		while (root.getParent() != null) {
+			root = root.getParent();
+		}
+		Thread[] threads = new Thread[root.activeCount() + 16];
+		int count = root.enumerate(threads, true);
+		int carriers = 0;
+		for (int i = 0; i < count; i++) {
+			if (threads[i].getClass().getName().equals(CARRIER_THREAD_CLASS)) {
+				carriers++;
+			}
+		}
+		return carriers;
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cached, read-only view of the vets. The full list of vets is cached as one immutable
+ * snapshot in the {@code vets} region, where it weighs as one entry however many vets it
+ * holds. Pages are slices cut from that snapshot and are cached in their own
+ * {@code vetPages} region, keyed by the version of the snapshot, the page number and the
+ * size, so the list and the pages never evict each other, a page hit needs neither a
+ * database round trip nor sorting, and a page always agrees with the total of the
+ * snapshot it was cut from.
+ */
+@Component
+public class VetCatalog {
+
+	static final String VETS = "vets";
+
+	static final String VET_PAGES = "vetPages";
+
+	private final VetRepository vets;
+
+	private final Cache snapshots;
+
+	private final Cache pages;
+
+	private final AtomicLong versions = new AtomicLong();
+
+	public VetCatalog(VetRepository vets, CacheManager cacheManager) {
+		this.vets = vets;
+		this.snapshots = cacheManager.getCache(VETS);
+		this.pages = cacheManager.getCache(VET_PAGES);
+	}
+
+	/**
+	 * Retrieve all <code>Vet</code>s, ordered by id.
+	 * @return an immutable <code>List</code> of <code>Vet</code>s
+	 */
+	public List<Vet> findAll() {
+		return snapshot().vets();
+	}
+
+	/**
+	 * Retrieve a page of <code>Vet</code>s. Unsorted pages are cut from the snapshot
+	 * returned by {@link #findAll()}; sorted pages are read from the data store.
+	 * @param pageable the page to retrieve
+	 * @return the page of <code>Vet</code>s
+	 */
+	public Page<Vet> findAll(Pageable pageable) {
+		if (pageable.getSort().isSorted()) {
+			return this.vets.findAll(pageable);
+		}
+		Snapshot snapshot = snapshot();
+		List<Vet> content = this.pages.get(
+				new SimpleKey(snapshot.version(), pageable.getPageNumber(), pageable.getPageSize()),
+				() -> slice(snapshot.vets(), pageable));
+		return new PageImpl<>(content, pageable, snapshot.vets().size());
+	}
+
+	private Snapshot snapshot() {
+		return this.snapshots.get(SimpleKey.EMPTY,
+				() -> new Snapshot(this.versions.incrementAndGet(), List.copyOf(this.vets.findAll())));
+	}
+
+	private static List<Vet> slice(List<Vet> all, Pageable pageable) {
+		long offset = Math.min(pageable.getOffset(), all.size());
+		int to = (int) Math.min(offset + pageable.getPageSize(), all.size());
+		return List.copyOf(all.subList((int) offset, to));
+	}
+
+	/**
+	 * The vets read at one point in time. Pages cut from an earlier snapshot are not
+	 * found under the version of a later one, and age out of their region.
+	 */
+	record Snapshot(long version, List<Vet> vets) {
+
+	}
+
+}
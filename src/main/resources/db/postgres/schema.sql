@@ -1,14 +1,20 @@
 CREATE TABLE IF NOT EXISTS vets (
-  id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id         INT PRIMARY KEY,
   first_name TEXT,
   last_name  TEXT
 );
+-- Sequences hand out ids in blocks of 50 below their value, so move them past the
+-- existing rows when this script runs against a database that already has data.
+CREATE SEQUENCE IF NOT EXISTS vets_seq START WITH 100 INCREMENT BY 50;
+SELECT setval('vets_seq', GREATEST(COALESCE(MAX(id), 0) + 50, (SELECT last_value FROM vets_seq))) FROM vets;
 CREATE INDEX ON vets (last_name);
 
 CREATE TABLE IF NOT EXISTS specialties (
-  id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id   INT PRIMARY KEY,
   name TEXT
 );
+CREATE SEQUENCE IF NOT EXISTS specialties_seq START WITH 100 INCREMENT BY 50;
+SELECT setval('specialties_seq', GREATEST(COALESCE(MAX(id), 0) + 50, (SELECT last_value FROM specialties_seq))) FROM specialties;
 CREATE INDEX ON specialties (name);
 
 CREATE TABLE IF NOT EXISTS vet_specialties (
@@ -18,35 +24,43 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
 );
 
 CREATE TABLE IF NOT EXISTS types (
-  id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id   INT PRIMARY KEY,
   name TEXT
 );
+CREATE SEQUENCE IF NOT EXISTS types_seq START WITH 100 INCREMENT BY 50;
+SELECT setval('types_seq', GREATEST(COALESCE(MAX(id), 0) + 50, (SELECT last_value FROM types_seq))) FROM types;
 CREATE INDEX ON types (name);
 
 CREATE TABLE IF NOT EXISTS owners (
-  id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id         INT PRIMARY KEY,
   first_name TEXT,
   last_name  TEXT,
   address    TEXT,
   city       TEXT,
   telephone  TEXT
 );
-CREATE INDEX ON owners (last_name);
+CREATE SEQUENCE IF NOT EXISTS owners_seq START WITH 100 INCREMENT BY 50;
+SELECT setval('owners_seq', GREATEST(COALESCE(MAX(id), 0) + 50, (SELECT last_value FROM owners_seq))) FROM owners;
+CREATE INDEX ON owners (last_name, id);
 
 CREATE TABLE IF NOT EXISTS pets (
-  id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id         INT PRIMARY KEY,
   name       TEXT,
   birth_date DATE,
   type_id    INT NOT NULL REFERENCES types (id),
   owner_id   INT REFERENCES owners (id)
 );
+CREATE SEQUENCE IF NOT EXISTS pets_seq START WITH 100 INCREMENT BY 50;
+SELECT setval('pets_seq', GREATEST(COALESCE(MAX(id), 0) + 50, (SELECT last_value FROM pets_seq))) FROM pets;
 CREATE INDEX ON pets (name);
 CREATE INDEX ON pets (owner_id);
 
 CREATE TABLE IF NOT EXISTS visits (
-  id          INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id          INT PRIMARY KEY,
   pet_id      INT REFERENCES pets (id),
   visit_date  DATE,
   description TEXT
 );
-CREATE INDEX ON visits (pet_id);
+CREATE SEQUENCE IF NOT EXISTS visits_seq START WITH 100 INCREMENT BY 50;
+SELECT setval('visits_seq', GREATEST(COALESCE(MAX(id), 0) + 50, (SELECT last_value FROM visits_seq))) FROM visits;
+CREATE INDEX ON visits (pet_id, visit_date, id);
@@ -17,7 +17,9 @@
 package org.springframework.samples.petclinic;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import org.hibernate.LazyInitializationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
@@ -28,7 +30,9 @@ import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
-import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.vet.VetCatalog;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
@@ -38,7 +42,10 @@ public class PetClinicIntegrationTests {
 	int port;
 
 	@Autowired
-	private VetRepository vets;
+	private VetCatalog vets;
+
+	@Autowired
+	private OwnerRepository owners;
 
 	@Autowired
 	private RestTemplateBuilder builder;
@@ -56,6 +63,13 @@ public class PetClinicIntegrationTests {
 		assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
 	}
 
+	@Test
+	void testLazyLoadingOutsideOfTransactionFails() {
+		Owner owner = this.owners.findById(6);
+		assertThatThrownBy(() -> owner.getPet("Samantha").getVisits().size())
+			.isInstanceOf(LazyInitializationException.class);
+	}
+
 	public static void main(String[] args) {
 		SpringApplication.run(PetClinicApplication.class, args);
 	}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.owner.LastNameTrie.Change;
+
+/**
+ * Test class for {@link LastNameTrie}
+ */
+class LastNameTrieTests {
+
+	private final LastNameTrie trie = trie("Dav", 1, "Davis", 4, "Davidson", 2, "Franklin", 1, "Frank", 3, "Black", 1);
+
+	@Test
+	void shouldFindMostCommonNamesByPrefix() {
+		assertThat(names(this.trie, "dav")).containsExactly("Davis", "Davidson", "Dav");
+		assertThat(names(this.trie, "davi")).containsExactly("Davis", "Davidson");
+		assertThat(names(this.trie, "fr")).containsExactly("Frank", "Franklin");
+		assertThat(names(this.trie, "")).containsExactly("Davis", "Frank", "Davidson", "Black", "Dav", "Franklin");
+	}
+
+	@Test
+	void shouldFindNothingForUnknownPrefix() {
+		assertThat(names(this.trie, "davo")).isEmpty();
+		assertThat(names(this.trie, "franklins")).isEmpty();
+		assertThat(names(this.trie, "x")).isEmpty();
+		assertThat(names(LastNameTrie.EMPTY, "")).isEmpty();
+	}
+
+	@Test
+	void shouldRankLargeRangesInAdvance() {
+		Object[] names = new Object[2 * 200];
+		for (int i = 0; i < 200; i++) {
+			names[2 * i] = String.format("Name%03d", i);
+			names[2 * i + 1] = (i % 50 == 7 ? 1000 + i : 1);
+		}
+		LastNameTrie trie = trie(names);
+
+		assertThat(names(trie, "name")).hasSize(LastNameTrie.TOP)
+			.startsWith("Name157", "Name107", "Name057", "Name007", "Name000");
+		assertThat(names(trie, "name1")).startsWith("Name157", "Name107", "Name100");
+	}
+
+	@Test
+	void shouldMergeChanges() {
+		TreeMap<String, Change> changes = new TreeMap<>();
+		changes.put("black", new Change("Black", -1));
+		changes.put("davidson", new Change("Davidson", 3));
+		changes.put("escobito", new Change("Escobito", 1));
+
+		LastNameTrie merged = this.trie.merge(changes);
+
+		assertThat(merged.size()).isEqualTo(6);
+		assertThat(names(merged, "dav")).containsExactly("Davidson", "Davis", "Dav");
+		assertThat(merged.count("davidson")).isEqualTo(5);
+		assertThat(names(merged, "e")).containsExactly("Escobito");
+		assertThat(names(merged, "b")).isEmpty();
+		assertThat(this.trie.count("black")).isEqualTo(1);
+	}
+
+	private static String[] names(LastNameTrie trie, String prefix) {
+		return Arrays.stream(trie.find(prefix)).mapToObj(trie::name).toArray(String[]::new);
+	}
+
+	private static LastNameTrie trie(Object... namesAndCounts) {
+		TreeMap<String, Change> counts = new TreeMap<>();
+		for (int i = 0; i < namesAndCounts.length; i += 2) {
+			String name = (String) namesAndCounts[i];
+			counts.put(name.toLowerCase(Locale.ROOT), new Change(name, (Integer) namesAndCounts[i + 1]));
+		}
+		return LastNameTrie.EMPTY.merge(counts);
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Integration test for the owners read API of {@link OwnerApiController}.
+ */
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+class OwnerApiControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void shouldListOwnerSummariesPageByPage() throws Exception {
+		MvcResult first = this.mockMvc.perform(get("/api/owners").param("size", "6"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.owners", hasSize(6)))
+			.andExpect(jsonPath("$.owners[0].lastName").value("Black"))
+			.andExpect(jsonPath("$.owners[0].city").value("Monona"))
+			.andExpect(jsonPath("$.owners[0].address").doesNotExist())
+			.andReturn();
+		String next = JsonPath.read(first.getResponse().getContentAsString(), "$.next");
+
+		this.mockMvc.perform(get("/api/owners").param("size", "6").param("cursor", next))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.owners", hasSize(4)))
+			.andExpect(jsonPath("$.owners[0].lastName").value("Franklin"))
+			.andExpect(jsonPath("$.next", nullValue()));
+	}
+
+	@Test
+	void shouldFilterOwnersByLastName() throws Exception {
+		this.mockMvc.perform(get("/api/owners").param("lastName", "Davis"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.owners", hasSize(2)))
+			.andExpect(jsonPath("$.owners[*].firstName").value(contains("Betty", "Harold")));
+	}
+
+	@Test
+	void shouldShowOwnerDetailsWithPets() throws Exception {
+		this.mockMvc.perform(get("/api/owners/6").accept(OwnerApiController.V1))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(OwnerApiController.V1))
+			.andExpect(jsonPath("$.lastName").value("Coleman"))
+			.andExpect(jsonPath("$.address").value("105 N. Lake St."))
+			.andExpect(jsonPath("$.pets", hasSize(2)))
+			.andExpect(jsonPath("$.pets[0].name").value("Max"))
+			.andExpect(jsonPath("$.pets[0].type").value("cat"))
+			.andExpect(jsonPath("$.pets[0].birthDate").value("2012-09-04"));
+	}
+
+	@Test
+	void shouldReturnNotFoundForUnknownOwner() throws Exception {
+		this.mockMvc.perform(get("/api/owners/9999")).andExpect(status().isNotFound());
+	}
+
+}
@@ -24,17 +24,21 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -45,6 +49,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
@@ -55,6 +60,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @author Colin But
  */
 @WebMvcTest(OwnerController.class)
+@Import(OwnerAggregateLoader.class)
 @DisabledInNativeImage
 @DisabledInAotMode
 class OwnerControllerTests {
@@ -67,6 +73,9 @@ class OwnerControllerTests {
 	@MockBean
 	private OwnerRepository owners;
 
+	@MockBean
+	private VisitRepository visits;
+
 	private Owner george() {
 		Owner george = new Owner();
 		george.setId(TEST_OWNER_ID);
@@ -90,15 +99,17 @@ class OwnerControllerTests {
 	void setup() {
 
 		Owner george = george();
-		given(this.owners.findByLastName(eq("Franklin"), any(Pageable.class)))
-			.willReturn(new PageImpl<>(Lists.newArrayList(george)));
+		given(this.owners.findByLastName("Franklin", null, 5)).willReturn(new OwnerWindow(List.of(george), null, null));
 
 		given(this.owners.findAll(any(Pageable.class))).willReturn(new PageImpl<>(Lists.newArrayList(george)));
 
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(george);
 		Visit visit = new Visit();
+		visit.setId(1);
 		visit.setDate(LocalDate.now());
 		george.getPet("Max").getVisits().add(visit);
+		given(this.visits.findLatestVisits(List.of(1), VisitPage.SIZE))
+			.willReturn(Map.of(1, new VisitPage(List.of(visit), true)));
 
 	}
 
@@ -142,15 +153,15 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessFindFormSuccess() throws Exception {
-		Page<Owner> tasks = new PageImpl<>(Lists.newArrayList(george(), new Owner()));
-		Mockito.when(this.owners.findByLastName(anyString(), any(Pageable.class))).thenReturn(tasks);
+		OwnerWindow tasks = new OwnerWindow(Lists.newArrayList(george(), new Owner()), null, null);
+		Mockito.when(this.owners.findByLastName(anyString(), eq(null), eq(5))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1")).andExpect(status().isOk()).andExpect(view().name("owners/ownersList"));
 	}
 
 	@Test
 	void testProcessFindFormByLastName() throws Exception {
-		Page<Owner> tasks = new PageImpl<>(Lists.newArrayList(george()));
-		Mockito.when(this.owners.findByLastName(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
+		OwnerWindow tasks = new OwnerWindow(Lists.newArrayList(george()), null, null);
+		Mockito.when(this.owners.findByLastName(eq("Franklin"), eq(null), eq(5))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Franklin"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
@@ -158,8 +169,8 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessFindFormNoOwnersFound() throws Exception {
-		Page<Owner> tasks = new PageImpl<>(Lists.newArrayList());
-		Mockito.when(this.owners.findByLastName(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
+		OwnerWindow tasks = new OwnerWindow(Lists.newArrayList(), null, null);
+		Mockito.when(this.owners.findByLastName(eq("Unknown Surname"), eq(null), eq(5))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Unknown Surname"))
 			.andExpect(status().isOk())
 			.andExpect(model().attributeHasFieldErrors("owner", "lastName"))
@@ -168,6 +179,37 @@ class OwnerControllerTests {
 
 	}
 
+	@Test
+	void testProcessFindFormByCursor() throws Exception {
+		Owner other = george();
+		other.setId(2);
+		OwnerCursor next = new OwnerCursor(true, "Franklin", 2);
+		given(this.owners.findByLastName("", null, 5))
+			.willReturn(new OwnerWindow(List.of(george(), other), null, next));
+		given(this.owners.countByLastNameStartingWith("")).willReturn(10L);
+
+		mockMvc.perform(get("/owners"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("listOwners", hasSize(2)))
+			.andExpect(model().attribute("nextCursor", next.encode()))
+			.andExpect(model().attributeDoesNotExist("previousCursor"))
+			.andExpect(model().attribute("totalItems", 10L))
+			.andExpect(content().string(containsString("cursor=" + next.encode())))
+			.andExpect(view().name("owners/ownersList"));
+	}
+
+	@Test
+	void testProcessFindFormFromCursor() throws Exception {
+		OwnerCursor cursor = new OwnerCursor(true, "Davis", 4);
+		given(this.owners.findByLastName("", cursor, 5)).willReturn(OwnerWindow.of(List.of(george()), true, false));
+
+		mockMvc.perform(get("/owners").param("cursor", cursor.encode()))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeExists("previousCursor"))
+			.andExpect(model().attributeDoesNotExist("nextCursor"))
+			.andExpect(view().name("owners/ownersList"));
+	}
+
 	@Test
 	void testInitUpdateOwnerForm() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}/edit", TEST_OWNER_ID))
@@ -226,6 +268,8 @@ class OwnerControllerTests {
 			.andExpect(model().attribute("owner", hasProperty("pets", not(empty()))))
 			.andExpect(model().attribute("owner",
 					hasProperty("pets", hasItem(hasProperty("visits", hasSize(greaterThan(0)))))))
+			.andExpect(model().attribute("visitHistory", hasKey(1)))
+			.andExpect(content().string(containsString("data-before-id=\"1\"")))
 			.andExpect(view().name("owners/ownerDetails"));
 	}
 
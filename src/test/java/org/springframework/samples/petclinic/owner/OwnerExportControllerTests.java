@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Integration test for the owner export of {@link OwnerExportController}, against the
+ * sample data.
+ */
+@SpringBootTest(classes = PetClinicApplication.class, properties = "petclinic.export.flush-interval=3")
+@AutoConfigureMockMvc
+class OwnerExportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void shouldExportOneJsonLinePerOwner() throws Exception {
+		String body = this.mockMvc.perform(get("/api/export/owners.ndjson"))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(OwnerExportController.NDJSON))
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+
+		List<String> lines = body.lines().toList();
+		assertThat(body).endsWith("\n");
+		assertThat(lines).hasSize(10);
+
+		JsonNode george = this.objectMapper.readTree(lines.get(0));
+		assertThat(george.get("id").asInt()).isEqualTo(1);
+		assertThat(george.get("lastName").asText()).isEqualTo("Franklin");
+		assertThat(george.get("pets")).hasSize(1);
+		assertThat(george.get("pets").get(0).get("name").asText()).isEqualTo("Leo");
+		assertThat(george.get("pets").get(0).get("type").asText()).isEqualTo("cat");
+		assertThat(george.get("pets").get(0).get("birthDate").asText()).isEqualTo("2010-09-07");
+
+		JsonNode jean = this.objectMapper.readTree(lines.get(5));
+		assertThat(jean.get("lastName").asText()).isEqualTo("Coleman");
+		assertThat(jean.get("pets")).hasSize(2);
+		assertThat(jean.get("pets").get(0).get("visits")).hasSize(2);
+		assertThat(jean.get("pets").get(0).get("visits").get(0).get("description").asText()).isEqualTo("rabies shot");
+	}
+
+	@Test
+	void shouldExportOneCsvLinePerVisit() throws Exception {
+		String body = this.mockMvc.perform(get("/api/export/owners.csv"))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith("text/csv"))
+			.andExpect(header().string("Content-Disposition", "attachment; filename=\"owners.csv\""))
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+
+		List<String> lines = body.lines().toList();
+		assertThat(lines.get(0)).isEqualTo(String.join(",", OwnerExporter.CSV_COLUMNS));
+		assertThat(lines.get(1))
+			.isEqualTo("1,George,Franklin,110 W. Liberty St.,Madison,6085551023,1,Leo,2010-09-07,cat,,,");
+		assertThat(lines).filteredOn(line -> line.startsWith("6,")).hasSize(4);
+	}
+
+}
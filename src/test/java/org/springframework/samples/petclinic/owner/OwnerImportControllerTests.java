@@ -0,0 +1,150 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration test for the bulk import of {@link OwnerImportController}. Each test runs
+ * in a transaction that is rolled back, which the chunk transactions of the import join,
+ * except for the test of a failing chunk, which commits and deletes its owners again.
+ */
+@SpringBootTest(classes = PetClinicApplication.class, properties = "petclinic.import.chunk-size=2")
+@AutoConfigureMockMvc
+@Transactional
+class OwnerImportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void deleteCommittedOwners() {
+		this.jdbcTemplate.update("DELETE FROM visits WHERE pet_id IN (SELECT p.id FROM pets p "
+				+ "JOIN owners o ON o.id = p.owner_id WHERE o.last_name = 'Chunked')");
+		this.jdbcTemplate
+			.update("DELETE FROM pets WHERE owner_id IN (SELECT id FROM owners WHERE last_name = 'Chunked')");
+		this.jdbcTemplate.update("DELETE FROM owners WHERE last_name = 'Chunked'");
+	}
+
+	@Test
+	void shouldImportValidNdjsonOwnersAndReportTheOthers() throws Exception {
+		String body = """
+				{"firstName":"Anna","lastName":"Importer","address":"1 Main St.","city":"Madison","telephone":"6085550001","pets":[{"name":"Rex","birthDate":"2020-01-01","type":"dog","visits":[{"date":"2021-02-03","description":"checkup"}]}]}
+				{"firstName":"Bob","lastName":"Importer","address":"2 Main St.","city":"Madison","telephone":"123"}
+
+				{"firstName":"Carl","lastName":"Importer","address":"3 Main St.","city":"Madison","telephone":"6085550003","pets":[{"name":"Nemo","birthDate":"2020-01-01","type":"fish"}]}
+				not json
+				{"firstName":"Dora","lastName":"Importer","address":"4 Main St.","city":"Madison","telephone":"6085550004","pets":[{"name":"Tom","birthDate":"2019-05-06","type":"cat"},{"name":"Jerry","birthDate":"2019-05-07","type":"hamster"}]}
+				{"firstName":"Emil","lastName":"Importer","address":"5 Main St.","city":"Madison","telephone":"6085550005"}
+				""";
+
+		this.mockMvc.perform(post("/api/import").contentType(OwnerExportController.NDJSON).content(body))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.owners").value(3))
+			.andExpect(jsonPath("$.pets").value(3))
+			.andExpect(jsonPath("$.visits").value(1))
+			.andExpect(jsonPath("$.rejected").value(3))
+			.andExpect(jsonPath("$.errors", hasSize(3)))
+			.andExpect(jsonPath("$.errors[0]", startsWith("Line 2: telephone")))
+			.andExpect(jsonPath("$.errors[1]").value("Line 4: Unknown pet type: fish"))
+			.andExpect(jsonPath("$.errors[2]", startsWith("Line 5: Invalid JSON")));
+
+		assertThat(count("SELECT COUNT(*) FROM owners WHERE last_name = 'Importer'")).isEqualTo(3);
+		assertThat(count("SELECT COUNT(*) FROM pets p JOIN owners o ON o.id = p.owner_id "
+				+ "WHERE o.first_name = 'Dora' AND o.last_name = 'Importer'"))
+			.isEqualTo(2);
+		assertThat(count("SELECT COUNT(*) FROM visits v JOIN pets p ON p.id = v.pet_id WHERE p.name = 'Rex'"))
+			.isEqualTo(1);
+	}
+
+	@Test
+	void shouldImportCsvGroupedByOwnerAndPet() throws Exception {
+		String body = String.join(",", OwnerExporter.CSV_COLUMNS) + "\r\n"
+				+ "1,Anna,Csv,\"1 Main St., Apt 2\",Madison,6085550001,1,Rex,2020-01-01,dog,1,2021-02-03,\"checkup, \"\"all good\"\"\"\r\n"
+				+ "1,Anna,Csv,\"1 Main St., Apt 2\",Madison,6085550001,1,Rex,2020-01-01,dog,2,2021-03-04,\"x-ray\nand shots\"\r\n"
+				+ "1,Anna,Csv,\"1 Main St., Apt 2\",Madison,6085550001,2,Tom,2019-05-06,cat,,,\r\n"
+				+ "2,Bob,Csv,2 Main St.,Madison,6085550002,,,,,,,\r\n"
+				+ "3,Carl,Csv,3 Main St.,Madison,6085550003,3,Nemo,not a date,cat,,,\r\n";
+
+		this.mockMvc.perform(post("/api/import").contentType("text/csv").content(body))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.owners").value(2))
+			.andExpect(jsonPath("$.pets").value(2))
+			.andExpect(jsonPath("$.visits").value(2))
+			.andExpect(jsonPath("$.rejected").value(1))
+			.andExpect(jsonPath("$.errors[0]").value("Line 7: Invalid date: not a date"));
+
+		assertThat(
+				this.jdbcTemplate.queryForObject("SELECT address FROM owners WHERE first_name = 'Anna'", String.class))
+			.isEqualTo("1 Main St., Apt 2");
+		assertThat(this.jdbcTemplate.queryForList(
+				"SELECT v.description FROM visits v JOIN pets p ON p.id = v.pet_id WHERE p.name = 'Rex' ORDER BY v.id",
+				String.class))
+			.containsExactly("checkup, \"all good\"", "x-ray\nand shots");
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void shouldRollBackOnlyTheChunkThatFails() throws Exception {
+		String longName = "R".repeat(31);
+		String body = """
+				{"firstName":"Anna","lastName":"Chunked","address":"1 Main St.","city":"Madison","telephone":"6085550001"}
+				{"firstName":"Bob","lastName":"Chunked","address":"2 Main St.","city":"Madison","telephone":"6085550002"}
+				{"firstName":"Carl","lastName":"Chunked","address":"3 Main St.","city":"Madison","telephone":"6085550003"}
+				{"firstName":"Dora","lastName":"Chunked","address":"4 Main St.","city":"Madison","telephone":"6085550004","pets":[{"name":"%s","birthDate":"2019-05-06","type":"cat"}]}
+				{"firstName":"Emil","lastName":"Chunked","address":"5 Main St.","city":"Madison","telephone":"6085550005"}
+				"""
+			.formatted(longName);
+
+		this.mockMvc.perform(post("/api/import").contentType(OwnerExportController.NDJSON).content(body))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.owners").value(3))
+			.andExpect(jsonPath("$.pets").value(0))
+			.andExpect(jsonPath("$.rejected").value(2))
+			.andExpect(jsonPath("$.errors", hasSize(1)))
+			.andExpect(jsonPath("$.errors[0]", startsWith("Lines 3-4: ")));
+
+		assertThat(this.jdbcTemplate.queryForList(
+				"SELECT first_name FROM owners WHERE last_name = 'Chunked' ORDER BY first_name", String.class))
+			.containsExactly("Anna", "Bob", "Emil");
+		assertThat(count("SELECT COUNT(*) FROM pets WHERE name = '" + longName + "'")).isZero();
+	}
+
+	private int count(String sql) {
+		return this.jdbcTemplate.queryForObject(sql, Integer.class);
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration test for the owner search of {@link OwnerSearchController} against the
+ * sample owners. The test class has a context and database of its own, because it creates
+ * an owner.
+ */
+@SpringBootTest(classes = PetClinicApplication.class, properties = "petclinic.search.limit=10")
+@AutoConfigureMockMvc
+class OwnerSearchControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private OwnerSearchIndex index;
+
+	@Test
+	void shouldFindOwnerDespiteTypo() throws Exception {
+		this.mockMvc.perform(get("/owners/search").param("q", "Frnklin"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(redirectedUrl("/owners/1"));
+	}
+
+	@Test
+	void shouldFindOwnerBySubstringOfAddress() throws Exception {
+		this.mockMvc.perform(get("/owners/search").param("q", "ibert"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(redirectedUrl("/owners/1"));
+	}
+
+	@Test
+	void shouldRankSubstringMatchesBeforeSimilarOwners() throws Exception {
+		this.mockMvc.perform(get("/owners/search").param("q", "davis"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("owners/ownersList"))
+			.andExpect(model().attribute("listOwners", hasSize(3)))
+			.andExpect(model().attribute("listOwners", contains(hasProperty("firstName", is("Betty")),
+					hasProperty("firstName", is("Harold")), hasProperty("firstName", is("David")))));
+	}
+
+	@Test
+	void shouldRankOwnerContainingEveryWordFirst() throws Exception {
+		this.mockMvc.perform(get("/owners/search").param("q", "maple madison"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("listOwners",
+					contains(hasProperty("firstName", is("Maria")), hasProperty("firstName", is("George")),
+							hasProperty("firstName", is("Peter")), hasProperty("firstName", is("David")))));
+	}
+
+	@Test
+	void shouldMatchShortWordsAtTheStartOfWords() throws Exception {
+		this.mockMvc.perform(get("/owners/search").param("q", "la"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("listOwners",
+					contains(hasProperty("firstName", is("Carlos")), hasProperty("firstName", is("Jean")))));
+	}
+
+	@Test
+	void shouldReturnFindFormWhenNothingMatches() throws Exception {
+		this.mockMvc.perform(get("/owners/search").param("q", "xyzzy"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("owners/findOwners"))
+			.andExpect(model().attribute("queryNotFound", true));
+	}
+
+	@Test
+	void shouldIndexCreatedOwners() throws Exception {
+		int size = this.index.size();
+		this.mockMvc
+			.perform(post("/owners/new").param("firstName", "Zelda")
+				.param("lastName", "Zimmermann")
+				.param("address", "12 Quarry Rd.")
+				.param("city", "Verona")
+				.param("telephone", "6085550012"))
+			.andExpect(status().is3xxRedirection());
+		assertThat(this.index.size()).isEqualTo(size + 1);
+
+		this.mockMvc.perform(get("/owners/search").param("q", "zimerman"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(redirectedUrlPattern("/owners/*"));
+	}
+
+}
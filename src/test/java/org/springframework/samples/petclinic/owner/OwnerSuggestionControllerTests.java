@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration test for the last name suggestions of {@link OwnerSuggestionController}
+ * against the sample owners.
+ */
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+class OwnerSuggestionControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private LastNameSuggester suggester;
+
+	@Test
+	void shouldSuggestLastNamesWithOwnerCounts() throws Exception {
+		this.mockMvc.perform(get("/api/owners/suggest").param("prefix", "Es"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", hasSize(2)))
+			.andExpect(jsonPath("$[0].lastName").value("Escobito"))
+			.andExpect(jsonPath("$[0].owners").value(1))
+			.andExpect(jsonPath("$[1].lastName").value("Estaban"));
+
+		this.mockMvc.perform(get("/api/owners/suggest").param("prefix", "d"))
+			.andExpect(jsonPath("$[0].lastName").value("Davis"))
+			.andExpect(jsonPath("$[0].owners").value(2));
+
+		this.mockMvc.perform(get("/api/owners/suggest").param("prefix", "").param("limit", "3"))
+			.andExpect(jsonPath("$", hasSize(3)));
+	}
+
+	@Test
+	void shouldAcceptNegativeLimit() throws Exception {
+		this.mockMvc.perform(get("/api/owners/suggest").param("prefix", "").param("limit", "-1"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", hasSize(0)));
+	}
+
+	@Test
+	void shouldFollowSavedOwners() throws Exception {
+		Owner owner = new Owner();
+		owner.setId(1);
+		owner.setLastName("Davis");
+		try {
+			this.suggester.ownersSaved(new OwnersSavedEvent(owner, "Franklin"));
+
+			this.mockMvc.perform(get("/api/owners/suggest").param("prefix", "dav"))
+				.andExpect(jsonPath("$[0].lastName").value("Davis"))
+				.andExpect(jsonPath("$[0].owners").value(3));
+			this.mockMvc.perform(get("/api/owners/suggest").param("prefix", "fr")).andExpect(jsonPath("$", hasSize(0)));
+		}
+		finally {
+			owner.setLastName("Franklin");
+			this.suggester.ownersSaved(new OwnersSavedEvent(owner, "Davis"));
+		}
+		this.mockMvc.perform(get("/api/owners/suggest").param("prefix", "fr"))
+			.andExpect(jsonPath("$[0].lastName").value("Franklin"));
+	}
+
+}
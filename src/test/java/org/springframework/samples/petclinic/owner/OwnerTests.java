@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.SerializationUtils;
+
+/**
+ * Test class for the pet lookups of {@link Owner}
+ */
+class OwnerTests {
+
+	private Owner owner;
+
+	private Pet max;
+
+	@BeforeEach
+	void setup() {
+		this.owner = new Owner();
+		this.max = pet("Max");
+		this.owner.addPet(this.max);
+		this.max.setId(1);
+	}
+
+	@Test
+	void shouldFindPetByIdAndNameIgnoringCase() {
+		assertThat(this.owner.getPet(1)).isSameAs(this.max);
+		assertThat(this.owner.getPet("mAX")).isSameAs(this.max);
+		assertThat(this.owner.getPet("Max", true)).isSameAs(this.max);
+		assertThat(this.owner.getPet(2)).isNull();
+		assertThat(this.owner.getPet("Rex")).isNull();
+	}
+
+	@Test
+	void shouldSeeAddedPets() {
+		assertThat(this.owner.getPet("Rex")).isNull();
+
+		Pet rex = pet("Rex");
+		this.owner.addPet(rex);
+
+		assertThat(this.owner.getPet("rex")).isSameAs(rex);
+		assertThat(this.owner.getPet("rex", true)).isNull();
+	}
+
+	@Test
+	void shouldSeeIdsAssignedAfterLookup() {
+		Pet rex = pet("Rex");
+		this.owner.addPet(rex);
+		assertThat(this.owner.getPet(2)).isNull();
+
+		rex.setId(2);
+
+		assertThat(this.owner.getPet(2)).isSameAs(rex);
+		assertThat(this.owner.getPet("Rex", true)).isSameAs(rex);
+	}
+
+	@Test
+	void shouldSeeRenamedPets() {
+		assertThat(this.owner.getPet("Max")).isSameAs(this.max);
+
+		this.max.setName("Rex");
+
+		assertThat(this.owner.getPet("Max")).isNull();
+		assertThat(this.owner.getPet("Rex")).isSameAs(this.max);
+	}
+
+	@Test
+	void shouldReturnFirstPetWithName() {
+		Pet otherMax = pet("MAX");
+		this.owner.getPets().add(0, otherMax);
+
+		assertThat(this.owner.getPet("max")).isSameAs(otherMax);
+		assertThat(this.owner.getPet("max", true)).isSameAs(this.max);
+	}
+
+	@Test
+	void shouldSeePetsReplacedInPlace() {
+		assertThat(this.owner.getPet("Max")).isSameAs(this.max);
+
+		Pet rex = pet("Rex");
+		this.owner.getPets().set(0, rex);
+
+		assertThat(this.owner.getPet("Max")).isNull();
+		assertThat(this.owner.getPet(1)).isNull();
+		assertThat(this.owner.getPet("Rex")).isSameAs(rex);
+	}
+
+	@Test
+	void shouldSeePetsRemovedAndAdded() {
+		assertThat(this.owner.getPet(1)).isSameAs(this.max);
+
+		Pet rex = pet("Rex");
+		rex.setId(2);
+		this.owner.getPets().remove(this.max);
+		this.owner.getPets().add(rex);
+
+		assertThat(this.owner.getPet(1)).isNull();
+		assertThat(this.owner.getPet(2)).isSameAs(rex);
+		assertThat(this.owner.getPet("Max")).isNull();
+	}
+
+	@Test
+	void shouldSeeRenamedPetsAddedAfterLookup() {
+		assertThat(this.owner.getPet("Rex")).isNull();
+		Pet rex = pet("Rex");
+		this.owner.getPets().add(rex);
+		assertThat(this.owner.getPet("Rex")).isSameAs(rex);
+
+		rex.setName("Basil");
+
+		assertThat(this.owner.getPet("Rex")).isNull();
+		assertThat(this.owner.getPet("Basil")).isSameAs(rex);
+	}
+
+	@Test
+	void shouldMatchNamesLikeEqualsIgnoreCase() {
+		Pet iggy = pet("Iggy");
+		this.owner.addPet(iggy);
+
+		// dotless i, whose upper case is I
+		assertThat(this.owner.getPet("\u0131ggy")).isSameAs(iggy);
+		assertThat(this.owner.getPet("IGGY")).isSameAs(iggy);
+	}
+
+	@Test
+	void shouldFindPetsAfterDeserialization() {
+		assertThat(this.owner.getPet("Max")).isSameAs(this.max);
+
+		Owner copy = SerializationUtils.clone(this.owner);
+
+		assertThat(copy.getPets()).hasSize(1);
+		assertThat(copy.getPet("Max").getId()).isEqualTo(1);
+		assertThat(copy.getPet(1).getName()).isEqualTo("Max");
+	}
+
+	private static Pet pet(String name) {
+		Pet pet = new Pet();
+		pet.setName(name);
+		return pet;
+	}
+
+}
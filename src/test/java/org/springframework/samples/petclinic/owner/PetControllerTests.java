@@ -25,10 +25,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -42,6 +47,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 @WebMvcTest(value = PetController.class,
 		includeFilters = @ComponentScan.Filter(value = PetTypeFormatter.class, type = FilterType.ASSIGNABLE_TYPE))
+@Import({ OwnerAggregateLoader.class, PetTypeRegistry.class })
 @DisabledInNativeImage
 @DisabledInAotMode
 class PetControllerTests {
@@ -53,15 +59,22 @@ class PetControllerTests {
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private PetTypeRegistry petTypes;
+
 	@MockBean
 	private OwnerRepository owners;
 
+	@MockBean
+	private VisitRepository visits;
+
 	@BeforeEach
 	void setup() {
 		PetType cat = new PetType();
 		cat.setId(3);
 		cat.setName("hamster");
 		given(this.owners.findPetTypes()).willReturn(Lists.newArrayList(cat));
+		this.petTypes.refresh();
 		Owner owner = new Owner();
 		Pet pet = new Pet();
 		owner.addPet(pet);
@@ -108,6 +121,24 @@ class PetControllerTests {
 			.andExpect(view().name("pets/createOrUpdatePetForm"));
 	}
 
+	@Test
+	void testInitUpdateFormLoadsOwnerOncePerRequest() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/edit", TEST_OWNER_ID, TEST_PET_ID))
+			.andExpect(status().isOk());
+		then(this.owners).should(times(1)).findById(TEST_OWNER_ID);
+	}
+
+	@Test
+	void testProcessCreationFormDoesNotQueryPetTypes() throws Exception {
+		clearInvocations(this.owners);
+		mockMvc
+			.perform(post("/owners/{ownerId}/pets/new", TEST_OWNER_ID).param("name", "Betty")
+				.param("type", "hamster")
+				.param("birthDate", "2015-02-12"))
+			.andExpect(status().is3xxRedirection());
+		then(this.owners).should(never()).findPetTypes();
+	}
+
 	@Test
 	void testProcessUpdateFormSuccess() throws Exception {
 		mockMvc
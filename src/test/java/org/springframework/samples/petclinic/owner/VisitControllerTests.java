@@ -16,19 +16,27 @@
 
 package org.springframework.samples.petclinic.owner;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.time.LocalDate;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -38,6 +46,7 @@ import org.springframework.test.web.servlet.MockMvc;
  * @author Colin But
  */
 @WebMvcTest(VisitController.class)
+@Import(OwnerAggregateLoader.class)
 @DisabledInNativeImage
 @DisabledInAotMode
 class VisitControllerTests {
@@ -52,6 +61,9 @@ class VisitControllerTests {
 	@MockBean
 	private OwnerRepository owners;
 
+	@MockBean
+	private VisitRepository visits;
+
 	@BeforeEach
 	void init() {
 		Owner owner = new Owner();
@@ -59,6 +71,7 @@ class VisitControllerTests {
 		owner.addPet(pet);
 		pet.setId(TEST_PET_ID);
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(owner);
+		given(this.visits.existsPetForOwner(TEST_OWNER_ID, TEST_PET_ID)).willReturn(true);
 	}
 
 	@Test
@@ -76,6 +89,8 @@ class VisitControllerTests {
 				.param("description", "Visit Description"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		then(this.visits).should().save(argThat(visit -> visit.getPetId() == TEST_PET_ID));
+		then(this.owners).shouldHaveNoInteractions();
 	}
 
 	@Test
@@ -88,4 +103,30 @@ class VisitControllerTests {
 			.andExpect(view().name("pets/createOrUpdateVisitForm"));
 	}
 
+	@Test
+	void testShowVisitHistoryPagesOlderVisits() throws Exception {
+		Visit older = new Visit();
+		older.setId(3);
+		older.setDate(LocalDate.of(2013, 1, 2));
+		older.setDescription("rabies shot");
+		given(this.visits.findVisitsBefore(TEST_PET_ID, LocalDate.of(2013, 1, 3), 4, VisitPage.SIZE))
+			.willReturn(new VisitPage(List.of(older), false));
+
+		mockMvc
+			.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID)
+				.param("beforeDate", "2013-01-03")
+				.param("beforeId", "4"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.visits[0].id").value(3))
+			.andExpect(jsonPath("$.visits[0].date").value("2013-01-02"))
+			.andExpect(jsonPath("$.hasMore").value(false));
+		then(this.owners).shouldHaveNoInteractions();
+	}
+
+	@Test
+	void testShowVisitHistoryRejectsPetOfAnotherOwner() throws Exception {
+		assertThatThrownBy(() -> mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", 2, TEST_PET_ID)))
+			.hasCauseInstanceOf(IllegalArgumentException.class);
+	}
+
 }
@@ -20,20 +20,27 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerCursor;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerWindow;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetType;
 import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.samples.petclinic.owner.VisitPage;
+import org.springframework.samples.petclinic.owner.VisitRepository;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
 import org.springframework.stereotype.Service;
@@ -76,9 +83,15 @@ class ClinicServiceTests {
 	@Autowired
 	protected OwnerRepository owners;
 
+	@Autowired
+	protected TestEntityManager entityManager;
+
 	@Autowired
 	protected VetRepository vets;
 
+	@Autowired
+	protected VisitRepository visits;
+
 	Pageable pageable;
 
 	@Test
@@ -99,6 +112,34 @@ class ClinicServiceTests {
 		assertThat(owner.getPets().get(0).getType().getName()).isEqualTo("cat");
 	}
 
+	@Test
+	void shouldScrollOwnersByLastNameAndId() {
+		OwnerWindow first = this.owners.findByLastName("", null, 4);
+		assertThat(first.owners()).extracting(Owner::getId).containsExactly(7, 6, 2, 4);
+		assertThat(first.previous()).isNull();
+
+		OwnerWindow second = this.owners.findByLastName("", first.next(), 4);
+		assertThat(second.owners()).extracting(Owner::getId).containsExactly(8, 10, 1, 5);
+
+		OwnerWindow last = this.owners.findByLastName("", second.next(), 4);
+		assertThat(last.owners()).extracting(Owner::getId).containsExactly(3, 9);
+		assertThat(last.next()).isNull();
+
+		OwnerWindow back = this.owners.findByLastName("", second.previous(), 4);
+		assertThat(back.owners()).extracting(Owner::getId).containsExactly(7, 6, 2, 4);
+		assertThat(back.previous()).isNull();
+		assertThat(back.next()).isNotNull();
+	}
+
+	@Test
+	void shouldScrollOwnersFromEncodedCursor() {
+		OwnerWindow first = this.owners.findByLastName("Da", null, 1);
+		OwnerCursor next = OwnerCursor.decode(first.next().encode());
+
+		assertThat(next).isEqualTo(first.next());
+		assertThat(this.owners.findByLastName("Da", next, 1).owners()).extracting(Owner::getId).containsExactly(4);
+	}
+
 	@Test
 	@Transactional
 	void shouldInsertOwner() {
@@ -212,6 +253,50 @@ class ClinicServiceTests {
 			.allMatch(value -> value.getId() != null);
 	}
 
+	@Test
+	@Transactional
+	void shouldAppendVisitByPetId() {
+		assertThat(this.visits.existsPetForOwner(6, 7)).isTrue();
+		assertThat(this.visits.existsPetForOwner(1, 7)).isFalse();
+
+		Visit visit = new Visit();
+		visit.setDescription("test");
+		visit.setPetId(7);
+		this.visits.save(visit);
+		assertThat(visit.getId()).isNotNull();
+		// ids come from a sequence, so the insert waits for the flush
+		this.entityManager.flush();
+
+		Owner owner6 = this.owners.findById(6);
+		assertThat(owner6.getPet(7).getVisits()).hasSize(3).extracting(Visit::getDescription).contains("test");
+	}
+
+	@Test
+	void shouldPageVisitHistoryByDateAndId() {
+		VisitPage latest = this.visits.findLatestVisits(7, 1);
+		assertThat(latest.visits()).extracting(Visit::getId).containsExactly(4);
+		assertThat(latest.hasMore()).isTrue();
+
+		Visit last = latest.visits().get(0);
+		VisitPage older = this.visits.findVisitsBefore(7, last.getDate(), last.getId(), 1);
+		assertThat(older.visits()).extracting(Visit::getId).containsExactly(1);
+		assertThat(older.hasMore()).isFalse();
+	}
+
+	@Test
+	void shouldPageLatestVisitsOfSeveralPets() {
+		Map<Integer, VisitPage> latest = this.visits.findLatestVisits(List.of(7, 8, 1), 1);
+
+		assertThat(latest.get(7).visits()).extracting(Visit::getId).containsExactly(4);
+		assertThat(latest.get(7).hasMore()).isTrue();
+		assertThat(latest.get(8).visits()).extracting(Visit::getId).containsExactly(3);
+		assertThat(latest.get(8).hasMore()).isTrue();
+		assertThat(latest.get(1).visits()).isEmpty();
+		assertThat(latest.get(1).hasMore()).isFalse();
+		assertThat(this.visits.findLatestVisits(List.of(7), 5).get(7).visits()).extracting(Visit::getId)
+			.containsExactly(4, 1);
+	}
+
 	@Test
 	void shouldFindVisitsByPetId() {
 		Owner owner6 = this.owners.findById(6);
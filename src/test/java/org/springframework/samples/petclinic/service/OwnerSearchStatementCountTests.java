@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerDetails;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerSummary;
+import org.springframework.samples.petclinic.owner.OwnerSummaryPage;
+import org.springframework.samples.petclinic.owner.OwnerWindow;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetSummary;
+import org.springframework.samples.petclinic.owner.VisitPage;
+import org.springframework.samples.petclinic.owner.VisitRepository;
+import org.springframework.test.context.TestPropertySource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Verifies that searching owners by last name issues a constant number of statements per
+ * page, regardless of how many owners, pets and visits are on the page, that cursor-based
+ * pages need no count, that the projections of the owners API load no entities, and that
+ * the latest visits of all of an owner's pets are read in one statement.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OwnerSearchStatementCountTests {
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void resetStatistics() {
+		this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		this.statistics.clear();
+	}
+
+	@Test
+	void shouldLoadFullPageWithIdCountAndGraphQueries() {
+		Page<Owner> page = this.owners.findByLastName("", PageRequest.of(0, 5));
+
+		assertThat(page.getContent()).hasSize(5);
+		assertThat(page.getTotalElements()).isEqualTo(10);
+		assertThat(page.getContent()).extracting(Owner::getId).containsExactly(1, 2, 3, 4, 5);
+		assertThat(page.getContent()).flatExtracting(Owner::getPets).extracting(Pet::getType).doesNotContainNull();
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(3);
+	}
+
+	@Test
+	void shouldLoadEveryPageWithTheSameNumberOfStatements() {
+		for (int page = 0; page < 2; page++) {
+			this.statistics.clear();
+			this.owners.findByLastName("", PageRequest.of(page, 5)).getContent();
+			assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(3);
+		}
+	}
+
+	@Test
+	void shouldSkipGraphQueryWhenNothingMatches() {
+		Page<Owner> page = this.owners.findByLastName("Daviss", PageRequest.of(0, 5));
+
+		assertThat(page).isEmpty();
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldSeekDeepPagesWithoutCount() {
+		OwnerWindow first = this.owners.findByLastName("", null, 3);
+		this.statistics.clear();
+
+		OwnerWindow second = this.owners.findByLastName("", first.next(), 3);
+
+		assertThat(second.owners()).hasSize(3);
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldReadSummariesWithoutLoadingEntities() {
+		OwnerSummaryPage page = this.owners.findSummariesByLastName("", null, 3);
+
+		assertThat(page.owners()).extracting(OwnerSummary::lastName).containsExactly("Black", "Coleman", "Davis");
+		assertThat(page.next()).isNotNull();
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(this.statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void shouldReadDetailsWithoutLoadingEntities() {
+		OwnerDetails owner = this.owners.findDetailsById(6);
+
+		assertThat(owner.lastName()).isEqualTo("Coleman");
+		assertThat(owner.pets()).extracting(PetSummary::name).containsExactly("Max", "Samantha");
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(this.statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void shouldReadLatestVisitsOfAllPetsInOneStatement() {
+		Map<Integer, VisitPage> latest = this.visits.findLatestVisits(List.of(7, 8), VisitPage.SIZE);
+
+		assertThat(latest.get(7).visits()).hasSize(2);
+		assertThat(latest.get(8).visits()).hasSize(2);
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+}
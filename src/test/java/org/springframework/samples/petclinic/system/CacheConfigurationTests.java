@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerSummaryPage;
+import org.springframework.samples.petclinic.owner.OwnersSavedEvent;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetRepository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Integration test for the cache regions created by {@link CacheConfiguration}.
+ */
+@SpringBootTest(classes = PetClinicApplication.class)
+class CacheConfigurationTests {
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private VetRepository vets;
+
+	@Autowired
+	private ApplicationEventPublisher events;
+
+	@Test
+	void shouldCreateConfiguredRegions() {
+		assertThat(this.cacheManager.getCacheNames()).contains("vets", "vetPages", "ownerSummaries", "ownerCounts");
+	}
+
+	@Test
+	void shouldBoundRegionByWeightAndExpireAfterWrite() {
+		Cache<?, ?> cache = nativeCache("ownerCounts");
+		Policy.Eviction<?, ?> eviction = cache.policy().eviction().orElseThrow();
+		assertThat(eviction.isWeighted()).isTrue();
+		assertThat(eviction.getMaximum()).isEqualTo(1000);
+
+		long weight = eviction.weightedSize().orElseThrow();
+		this.cacheManager.getCache("ownerCounts").put("weighed", List.of("Davis", "Escobito", "Franklin"));
+		cache.cleanUp();
+		assertThat(eviction.weightedSize()).hasValue(weight + 3);
+		this.cacheManager.getCache("ownerCounts").evict("weighed");
+
+		assertThat(cache.policy().expireAfterWrite().orElseThrow().getExpiresAfter()).isEqualTo(Duration.ofMinutes(1));
+	}
+
+	@Test
+	void shouldExportRegionHitsAndMisses() {
+		double hits = gets("ownerSummaries", "hit");
+		double misses = gets("ownerSummaries", "miss");
+
+		OwnerSummaryPage page = this.owners.findSummariesByLastName("Da", null, 5);
+		assertThat(this.owners.findSummariesByLastName("Da", null, 5)).isSameAs(page);
+
+		assertThat(gets("ownerSummaries", "hit")).isEqualTo(hits + 1);
+		assertThat(gets("ownerSummaries", "miss")).isEqualTo(misses + 1);
+		assertThat(this.meterRegistry.get("cache.evictions").tags("cache", "ownerSummaries").functionCounter().count())
+			.isZero();
+	}
+
+	@Test
+	void shouldClearOwnerSummariesWhenOwnersAreSaved() {
+		OwnerSummaryPage page = this.owners.findSummariesByLastName("Fr", null, 5);
+
+		Owner owner = this.owners.findById(1);
+		this.events.publishEvent(new OwnersSavedEvent(owner, owner.getLastName()));
+
+		assertThat(this.owners.findSummariesByLastName("Fr", null, 5)).isNotSameAs(page).isEqualTo(page);
+	}
+
+	@Test
+	void shouldKeepReferenceEntitiesInSecondLevelCache() {
+		this.vets.findAll();
+		this.owners.findPetTypes();
+
+		org.hibernate.Cache cache = this.entityManagerFactory.unwrap(SessionFactory.class).getCache();
+		assertThat(cache.containsEntity(Vet.class, 3)).isTrue();
+		assertThat(cache.containsEntity(Specialty.class, 1)).isTrue();
+		assertThat(cache.containsCollection(Vet.class.getName() + ".specialties", 3)).isTrue();
+		assertThat(cache.containsEntity(PetType.class, 1)).isTrue();
+	}
+
+	@Test
+	void shouldServePetTypesFromQueryCache() {
+		this.owners.findPetTypes();
+		double hits = gets("default-query-results-region", "hit");
+
+		assertThat(this.owners.findPetTypes()).hasSize(6);
+		assertThat(gets("default-query-results-region", "hit")).isEqualTo(hits + 1);
+		assertThat(gets("petTypeEntities", "hit")).isPositive();
+	}
+
+	private double gets(String region, String result) {
+		return this.meterRegistry.get("cache.gets").tags("cache", region, "result", result).functionCounter().count();
+	}
+
+	private Cache<?, ?> nativeCache(String name) {
+		javax.cache.Cache<?, ?> cache = (javax.cache.Cache<?, ?>) this.cacheManager.getCache(name).getNativeCache();
+		return cache.unwrap(Cache.class);
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Connection;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import javax.sql.DataSource;
+
+/**
+ * Integration test for the per-handler connection metrics of
+ * {@link ConnectionLeaseMetrics}, with pages rendered outside of any transaction.
+ */
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+class ConnectionLeaseMetricsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void shouldTimeConnectionsHeldByEachHandler() throws Exception {
+		long before = holdCount("OwnerController.showOwner");
+
+		this.mockMvc.perform(get("/owners/{ownerId}", 6))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("rabies shot")));
+
+		assertThat(holdCount("OwnerController.showOwner")).isGreaterThan(before);
+	}
+
+	@Test
+	void shouldMeasureAcquireWaitAndStatementsOfEachLease() throws Exception {
+		this.mockMvc.perform(get("/owners").param("lastName", "Davis")).andExpect(status().isOk());
+
+		Timer acquire = this.meterRegistry.get("petclinic.jdbc.connection.acquire")
+			.tag("handler", "OwnerController.processFindForm")
+			.timer();
+		DistributionSummary statements = this.meterRegistry.get("petclinic.jdbc.connection.statements")
+			.tag("handler", "OwnerController.processFindForm")
+			.summary();
+		assertThat(acquire.count()).isPositive();
+		assertThat(statements.count()).isEqualTo(acquire.count());
+		assertThat(statements.totalAmount()).isGreaterThanOrEqualTo(statements.count());
+	}
+
+	@Test
+	void shouldExposeMetersThroughActuator() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}", 1)).andExpect(status().isOk());
+
+		this.mockMvc
+			.perform(get("/actuator/metrics/petclinic.jdbc.connection.hold").param("tag",
+					"handler:OwnerController.showOwner"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.baseUnit").value("seconds"))
+			.andExpect(jsonPath("$.measurements[0].statistic").value("COUNT"))
+			.andExpect(jsonPath("$.measurements[0].value", greaterThan(0.0)));
+	}
+
+	@Test
+	void shouldRenderPreviousVisitsWithoutOpenSessionInView() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("rabies shot")));
+
+		assertThat(holdCount("VisitController.initNewVisitForm")).isPositive();
+	}
+
+	@Test
+	void shouldTagConnectionsOutsideOfRequests() throws Exception {
+		long before = holdCount(ConnectionLeaseMetrics.NO_HANDLER);
+		try (Connection connection = this.dataSource.getConnection()) {
+			assertThat(connection.isValid(1)).isTrue();
+		}
+		assertThat(holdCount(ConnectionLeaseMetrics.NO_HANDLER)).isEqualTo(before + 1);
+	}
+
+	@Test
+	void shouldReadVisitsOfAllPetsWithoutRepeatedStatements() throws Exception {
+		this.jdbcTemplate.update("INSERT INTO pets VALUES (901, 'Tiger', '2020-01-01', 1, 6)");
+		this.jdbcTemplate.update("INSERT INTO pets VALUES (902, 'Smokey', '2021-01-01', 1, 6)");
+		try {
+			this.mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk());
+		}
+		finally {
+			this.jdbcTemplate.update("DELETE FROM pets WHERE id IN (901, 902)");
+		}
+
+		assertThat(this.meterRegistry.find("petclinic.query.repeated")
+			.tag("handler", "OwnerController.showOwner")
+			.counter()).isNull();
+	}
+
+	private long holdCount(String handler) {
+		Timer timer = this.meterRegistry.find("petclinic.jdbc.connection.hold").tag("handler", handler).timer();
+		return timer != null ? timer.count() : 0;
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Tests for {@link DataGenerator}, on the H2 schema and sample data.
+ */
+class DataGeneratorTests {
+
+	private final EmbeddedDatabase database = database();
+
+	private final EmbeddedDatabase otherDatabase = database();
+
+	@AfterEach
+	void shutdown() {
+		this.database.shutdown();
+		this.otherDatabase.shutdown();
+	}
+
+	@Test
+	void shouldGenerateOwnersWithPetsAndVisitsAfterTheSampleData() throws Exception {
+		DataGenerator.Report report = new DataGenerator(this.database, 42).generate(2000);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.database);
+
+		assertThat(report.owners()).isEqualTo(2000);
+		assertThat(count(jdbcTemplate, "owners")).isEqualTo(10 + 2000);
+		assertThat(count(jdbcTemplate, "pets")).isEqualTo(13 + report.pets());
+		assertThat(count(jdbcTemplate, "visits")).isEqualTo(4 + report.visits());
+		assertThat(count(jdbcTemplate, "vets")).isEqualTo(6 + 2);
+		assertThat(report.pets()).isBetween(2600L, 3400L);
+		assertThat(report.visits()).isGreaterThan(report.pets());
+		assertThat(report.specialties()).isEqualTo(17);
+		assertThat(jdbcTemplate.queryForObject("SELECT first_name FROM owners WHERE id = 1", String.class))
+			.isEqualTo("George");
+		assertThat(report.toString()).startsWith("Generated 2000 owners, ").contains("rows/s");
+	}
+
+	@Test
+	void shouldGenerateTheSameRowsForTheSameSeed() throws Exception {
+		new DataGenerator(this.database, 7).generate(500);
+		new DataGenerator(this.otherDatabase, 7).generate(500);
+
+		String rows = "SELECT o.id, o.first_name, o.last_name, o.telephone, p.name, p.birth_date, v.visit_date "
+				+ "FROM owners o LEFT JOIN pets p ON p.owner_id = o.id LEFT JOIN visits v ON v.pet_id = p.id "
+				+ "ORDER BY o.id, p.id, v.id";
+		List<Map<String, Object>> generated = new JdbcTemplate(this.database).queryForList(rows);
+		assertThat(generated).isEqualTo(new JdbcTemplate(this.otherDatabase).queryForList(rows));
+	}
+
+	@Test
+	void shouldSkewLastNamesAndKeepVisitsOffSundays() throws Exception {
+		new DataGenerator(this.database, 42).generate(20_000);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.database);
+
+		List<String> lastNames = jdbcTemplate.queryForList(
+				"SELECT last_name FROM owners GROUP BY last_name ORDER BY COUNT(*) DESC, last_name LIMIT 3",
+				String.class);
+		assertThat(lastNames).containsExactly("Smith", "Johnson", "Williams");
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT last_name) FROM owners", Integer.class))
+			.isGreaterThan(5000);
+		LocalDate today = DataGenerator.REFERENCE_DATE;
+		assertThat(jdbcTemplate.queryForList("SELECT visit_date FROM visits WHERE id >= 100", LocalDate.class))
+			.allSatisfy((date) -> {
+				assertThat(date.getDayOfWeek()).isNotEqualTo(DayOfWeek.SUNDAY);
+				assertThat(date).isBetween(today.minusYears(10), today);
+			});
+	}
+
+	@Test
+	void shouldMoveIdSequencesPastGeneratedRows() throws Exception {
+		new DataGenerator(this.database, 42).generate(1000);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.database);
+
+		for (String table : List.of("owners", "pets", "visits", "vets", "specialties")) {
+			int maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+			long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + table + "_seq", Long.class);
+			// The application takes the block of 50 ids that ends at the next value
+			assertThat(next - 49).as(table).isGreaterThan(maxId);
+		}
+	}
+
+	@Test
+	void shouldParseScaleWithSuffixes() {
+		assertThat(DataGenerator.scale("1000")).isEqualTo(1000);
+		assertThat(DataGenerator.scale("10k")).isEqualTo(10_000);
+		assertThat(DataGenerator.scale("50M")).isEqualTo(50_000_000);
+		assertThatIllegalArgumentException().isThrownBy(() -> DataGenerator.scale("0"));
+	}
+
+	private static long count(JdbcTemplate jdbcTemplate, String table) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+	}
+
+	private static EmbeddedDatabase database() {
+		return new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+			.generateUniqueName(true)
+			.addScripts("db/h2/schema.sql", "db/h2/data.sql")
+			.build();
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for {@link QueryBudgetInterceptor}, with the statements of a request recorded
+ * directly in its {@link StatementLog}.
+ */
+class QueryBudgetInterceptorTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	@AfterEach
+	void stopLog() {
+		StatementLog.stop();
+	}
+
+	@Test
+	void shouldFailRequestOverBudgetWhenEnforced() throws Exception {
+		QueryBudgetInterceptor interceptor = interceptor(true);
+		HandlerMethod handler = new HandlerMethod(new Handlers(), "budgeted");
+
+		interceptor.preHandle(this.request, this.response, handler);
+		StatementLog.record("select * from owners");
+
+		assertThatIllegalStateException().isThrownBy(() -> StatementLog.record("select * from pets"))
+			.withMessage("Handlers.budgeted executed 2 statements, over its budget of 1");
+		interceptor.afterCompletion(this.request, this.response, handler, null);
+		assertThat(count("petclinic.query.budget.exceeded", "Handlers.budgeted")).isEqualTo(1);
+		assertThat(StatementLog.current()).isNull();
+	}
+
+	@Test
+	void shouldOnlyCountRequestOverBudgetWhenNotEnforced() throws Exception {
+		QueryBudgetInterceptor interceptor = interceptor(false);
+		HandlerMethod handler = new HandlerMethod(new Handlers(), "budgeted");
+
+		interceptor.preHandle(this.request, this.response, handler);
+		StatementLog.record("select * from owners");
+		StatementLog.record(null);
+		interceptor.afterCompletion(this.request, this.response, handler, null);
+
+		assertThat(count("petclinic.query.budget.exceeded", "Handlers.budgeted")).isEqualTo(1);
+	}
+
+	@Test
+	void shouldAcceptRequestWithinBudget() throws Exception {
+		QueryBudgetInterceptor interceptor = interceptor(true);
+		HandlerMethod handler = new HandlerMethod(new Handlers(), "budgeted");
+
+		interceptor.preHandle(this.request, this.response, handler);
+		StatementLog.record("select * from owners");
+		interceptor.afterCompletion(this.request, this.response, handler, null);
+
+		assertThat(this.meterRegistry.find("petclinic.query.budget.exceeded").counter()).isNull();
+	}
+
+	@Test
+	void shouldReportRepeatedStatements() throws Exception {
+		QueryBudgetInterceptor interceptor = interceptor(true);
+		HandlerMethod handler = new HandlerMethod(new Handlers(), "unbudgeted");
+
+		interceptor.preHandle(this.request, this.response, handler);
+		StatementLog.record("select * from owners");
+		for (int i = 0; i < 3; i++) {
+			StatementLog.record("select * from visits where pet_id = ?");
+		}
+		assertThat(StatementLog.current().repeated(3)).isEqualTo(Map.of("select * from visits where pet_id = ?", 3));
+		interceptor.afterCompletion(this.request, this.response, handler, null);
+
+		assertThat(count("petclinic.query.repeated", "Handlers.unbudgeted")).isEqualTo(1);
+	}
+
+	@Test
+	void shouldNotRecordStatementsOutsideOfRequests() {
+		StatementLog.record("select * from owners");
+		assertThat(StatementLog.current()).isNull();
+	}
+
+	private QueryBudgetInterceptor interceptor(boolean enforce) {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(
+				Map.of("meterRegistry", this.meterRegistry));
+		return new QueryBudgetInterceptor(enforce, 3, beanFactory.getBeanProvider(MeterRegistry.class));
+	}
+
+	private double count(String name, String handler) {
+		Counter counter = this.meterRegistry.get(name).tag("handler", handler).counter();
+		return counter.count();
+	}
+
+	public static class Handlers {
+
+		@QueryBudget(max = 1)
+		public void budgeted() {
+		}
+
+		public void unbudgeted() {
+		}
+
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Integration test for {@link QueryMetrics} and {@link QueriesEndpoint}, with every query
+ * logged as slow.
+ */
+@SpringBootTest(classes = PetClinicApplication.class, properties = "petclinic.queries.slow-threshold=0ms")
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class QueryMetricsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void shouldTimeQueriesByRepositoryMethod() throws Exception {
+		this.mockMvc.perform(get("/owners").param("lastName", "Davis")).andExpect(status().isOk());
+
+		Timer timer = this.meterRegistry.get("petclinic.jpa.query")
+			.tag("method", "OwnerRepository.findFirstIdsByLastName")
+			.timer();
+		assertThat(timer.count()).isPositive();
+		assertThat(timer.takeSnapshot().histogramCounts()).isEmpty();
+		assertThat(this.meterRegistry.find("petclinic.jpa.query").timers())
+			.allSatisfy((query) -> assertThat(query.getId().getTag("method")).doesNotContain(" "));
+		assertThat(this.meterRegistry.get("hibernate.entities.loads").functionCounter().count()).isPositive();
+		assertThat(this.meterRegistry.get("hibernate.collections.fetches").functionCounter()).isNotNull();
+		assertThat(this.meterRegistry.get("hibernate.flushes").functionCounter()).isNotNull();
+	}
+
+	@Test
+	void shouldLogSlowQueriesWithHandlerAndArgumentShapes(CapturedOutput output) throws Exception {
+		this.mockMvc.perform(get("/owners").param("lastName", "Davis")).andExpect(status().isOk());
+
+		assertThat(output).contains("Slow query took", "in OwnerController.processFindForm",
+				"with arguments OwnerRepository.", "(String(5), ");
+		assertThat(output).doesNotContain("Davis'");
+	}
+
+	@Test
+	void shouldListSlowestQueriesFirst() throws Exception {
+		this.mockMvc.perform(get("/owners").param("lastName", "Davis")).andExpect(status().isOk());
+		this.mockMvc.perform(get("/owners/{ownerId}", 1)).andExpect(status().isOk());
+
+		this.mockMvc.perform(get("/actuator/queries").param("limit", "2"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.statisticsEnabled").value(true))
+			.andExpect(jsonPath("$.queries", hasSize(2)))
+			.andExpect(jsonPath("$.queries[0].executions", greaterThan(0)));
+	}
+
+	@Test
+	void shouldDescribeArgumentsWithoutTheirValues() {
+		assertThat(QueryMetrics.shape("Davis")).isEqualTo("String(5)");
+		assertThat(QueryMetrics.shape(List.of(1, 2, 3))).isEqualTo("ListN[3]");
+		assertThat(QueryMetrics.shape(new int[4])).isEqualTo("int[4]");
+		assertThat(QueryMetrics.shape(Limit.of(6))).isEqualTo("Limit(6)");
+		assertThat(QueryMetrics.shape(null)).isEqualTo("null");
+		assertThat(QueryMetrics.shape(42)).isEqualTo("Integer");
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for {@link VirtualThreadMonitor}, with the stacks of
+ * {@code jdk.VirtualThreadPinned} events given directly, so they run on Java 17.
+ */
+class VirtualThreadMonitorTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final VirtualThreadMonitor monitor = new VirtualThreadMonitor(Duration.ofMillis(20));
+
+	@BeforeEach
+	void bind() {
+		this.monitor.bindTo(this.meterRegistry);
+	}
+
+	@Test
+	void shouldTagPinningWithInnermostApplicationFrame() {
+		List<StackTraceElement> stackTrace = List.of(frame("jdk.internal.misc.Unsafe", "park"),
+				frame("java.util.concurrent.locks.LockSupport", "park"), frame("com.mysql.cj.NativeSession", "execSQL"),
+				frame("org.springframework.samples.petclinic.owner.OwnerController", "processFindForm"));
+
+		this.monitor.pinned(stackTrace, Duration.ofMillis(50));
+		this.monitor.pinned(stackTrace, Duration.ofMillis(30));
+
+		Timer timer = this.meterRegistry.get("jvm.threads.virtual.pinned")
+			.tag("class", "com.mysql.cj.NativeSession")
+			.timer();
+		assertThat(timer.count()).isEqualTo(2);
+		assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(80);
+	}
+
+	@Test
+	void shouldTagPinningInsideJdkAsUnknown() {
+		this.monitor.pinned(List.of(frame("java.lang.Object", "wait")), Duration.ofMillis(25));
+		this.monitor.pinned(List.of(), Duration.ofMillis(25));
+
+		assertThat(this.meterRegistry.get("jvm.threads.virtual.pinned").tag("class", "unknown").timer().count())
+			.isEqualTo(2);
+	}
+
+	@Test
+	void shouldCountFailedSubmits() {
+		this.monitor.submitFailed();
+
+		assertThat(this.meterRegistry.get("jvm.threads.virtual.submit.failed").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldPublishCarrierGauges() {
+		assertThat(this.meterRegistry.get("jvm.threads.virtual.carriers").gauge().value()).isNotNegative();
+		assertThat(this.meterRegistry.get("jvm.threads.virtual.parallelism").gauge().value()).isPositive();
+	}
+
+	private static StackTraceElement frame(String type, String method) {
+		return new StackTraceElement(type, method, null, 42);
+	}
+
+}
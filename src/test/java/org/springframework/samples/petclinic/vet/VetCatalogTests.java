@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Test class for {@link VetCatalog}
+ */
+class VetCatalogTests {
+
+	private final VetRepository vets = mock(VetRepository.class);
+
+	private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(VetCatalog.VETS,
+			VetCatalog.VET_PAGES);
+
+	private VetCatalog catalog;
+
+	@BeforeEach
+	void setup() {
+		List<Vet> all = new ArrayList<>();
+		for (int id = 1; id <= 7; id++) {
+			Vet vet = new Vet();
+			vet.setId(id);
+			all.add(vet);
+		}
+		given(this.vets.findAll()).willReturn(all);
+		this.catalog = new VetCatalog(this.vets, this.cacheManager);
+	}
+
+	@Test
+	void shouldCacheImmutableSnapshot() {
+		List<Vet> first = this.catalog.findAll();
+		List<Vet> second = this.catalog.findAll();
+
+		assertThat(second).isSameAs(first).hasSize(7);
+		assertThatThrownBy(() -> first.add(new Vet())).isInstanceOf(UnsupportedOperationException.class);
+		then(this.vets).should(times(1)).findAll();
+	}
+
+	@Test
+	void shouldCutPagesFromSnapshot() {
+		Page<Vet> page = this.catalog.findAll(PageRequest.of(1, 5));
+
+		assertThat(page.getContent()).extracting(Vet::getId).containsExactly(6, 7);
+		assertThat(page.getTotalElements()).isEqualTo(7);
+		assertThat(page.getTotalPages()).isEqualTo(2);
+		assertThat(this.catalog.findAll(PageRequest.of(1, 5)).getContent()).isEqualTo(page.getContent());
+		assertThat(this.catalog.findAll(PageRequest.of(2, 5)).getContent()).isEmpty();
+		then(this.vets).should(times(1)).findAll();
+		then(this.vets).should(never()).findAll(any(Pageable.class));
+	}
+
+	@Test
+	void shouldKeepSnapshotAndPagesInSeparateRegions() {
+		this.catalog.findAll(PageRequest.of(0, 5));
+
+		assertThat(this.cacheManager.getCache(VetCatalog.VETS).get(SimpleKey.EMPTY, VetCatalog.Snapshot.class))
+			.satisfies(snapshot -> assertThat(snapshot.vets()).hasSize(7));
+		assertThat(this.cacheManager.getCache(VetCatalog.VET_PAGES).getNativeCache()).isInstanceOfSatisfying(Map.class,
+				pages -> assertThat(pages).hasSize(1));
+	}
+
+	@Test
+	void shouldCutPagesFromCurrentSnapshot() {
+		assertThat(this.catalog.findAll(PageRequest.of(1, 5)).getContent()).extracting(Vet::getId)
+			.containsExactly(6, 7);
+		Vet added = new Vet();
+		added.setId(8);
+		List<Vet> all = new ArrayList<>(this.catalog.findAll());
+		all.add(added);
+		given(this.vets.findAll()).willReturn(all);
+
+		this.cacheManager.getCache(VetCatalog.VETS).clear();
+		Page<Vet> page = this.catalog.findAll(PageRequest.of(1, 5));
+
+		assertThat(page.getContent()).extracting(Vet::getId).containsExactly(6, 7, 8);
+		assertThat(page.getTotalElements()).isEqualTo(8);
+	}
+
+	@Test
+	void shouldReadSortedPagesFromRepository() {
+		Pageable byLastName = PageRequest.of(0, 5, Sort.by("lastName"));
+		given(this.vets.findAll(byLastName)).willReturn(new PageImpl<>(List.of()));
+
+		this.catalog.findAll(byLastName);
+
+		then(this.vets).should().findAll(byLastName);
+		then(this.vets).should(never()).findAll();
+	}
+
+}
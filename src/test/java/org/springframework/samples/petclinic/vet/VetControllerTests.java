@@ -49,7 +49,7 @@ class VetControllerTests {
 	private MockMvc mockMvc;
 
 	@MockBean
-	private VetRepository vets;
+	private VetCatalog vets;
 
 	private Vet james() {
 		Vet james = new Vet();